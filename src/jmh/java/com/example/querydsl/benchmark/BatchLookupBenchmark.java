@@ -0,0 +1,80 @@
+package com.example.querydsl.benchmark;
+
+import com.example.querydsl.domain.Member;
+import com.example.querydsl.repository.MemberRepository;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 키 하나씩 조회 (findById / findByUsername 루프) vs IN 절 chunk batch 조회
+ *
+ * ./gradlew jmh -Pjmh.includes=BatchLookupBenchmark
+ * 결과는 키 하나당 시간이 아니라 키 묶음 전체 조회 시간
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+public class BatchLookupBenchmark {
+
+    private static final int ROWS = 1_000_000;
+
+    @Param({"10", "100", "1000", "10000"})
+    int keys;
+
+    BenchmarkDatabase database;
+    MemberRepository memberRepository;
+
+    final List<Long> ids = new ArrayList<>();
+    final List<String> usernames = new ArrayList<>();
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        database = BenchmarkDatabase.start("batchlookup" + keys).seed(ROWS);
+        memberRepository = database.getBean(MemberRepository.class);
+
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        for (int i = 0; i < keys; i++) {
+            long id = random.nextLong(1, ROWS + 1);
+            ids.add(id);
+            usernames.add("member" + id);
+        }
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        database.close();
+    }
+
+    @Benchmark
+    public List<Member> idLoop() {
+        List<Member> result = new ArrayList<>(keys);
+        for (Long id : ids) {
+            memberRepository.findById(id).ifPresent(result::add);
+        }
+        return result;
+    }
+
+    @Benchmark
+    public Map<Long, Member> idBatch() {
+        return memberRepository.findByIds(ids);
+    }
+
+    @Benchmark
+    public List<Member> usernameLoop() {
+        List<Member> result = new ArrayList<>(keys);
+        for (String username : usernames) {
+            result.addAll(memberRepository.findByUsername(username));
+        }
+        return result;
+    }
+
+    @Benchmark
+    public Map<String, List<Member>> usernameBatch() {
+        return memberRepository.findByUsernames(usernames);
+    }
+}
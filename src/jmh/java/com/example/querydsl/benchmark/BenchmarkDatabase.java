@@ -0,0 +1,97 @@
+package com.example.querydsl.benchmark;
+
+import com.example.querydsl.QuerydslApplication;
+import jakarta.persistence.EntityManagerFactory;
+import org.springframework.boot.WebApplicationType;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * 벤치마크용 인메모리 h2 + 스프링 컨텍스트
+ *
+ * mysql 대신 h2(MySQL 모드)를 띄우고, 데이터는 JPA 를 거치지 않고 jdbc batch 로 바로 넣는다.
+ * InitMember 가 돌지 않도록 local 이 아닌 bench 프로파일로 띄운다.
+ * jdbc 로 넣은 데이터는 MemberAgeIndex / UsernameFilter 가 모르기 때문에 둘 다 끈다. (SQL 경로로 측정)
+ */
+public class BenchmarkDatabase implements AutoCloseable {
+
+    public static final int TEAM_COUNT = 10;
+
+    private static final int INSERT_BATCH = 10_000;
+
+    private static final String INSERT_MEMBER =
+            "insert into member (member_id, username, age, team_id, team_name) values (?, ?, ?, ?, ?)";
+
+    private final ConfigurableApplicationContext context;
+
+    private BenchmarkDatabase(ConfigurableApplicationContext context) {
+        this.context = context;
+    }
+
+    public static BenchmarkDatabase start(String name, String... extraArgs) {
+        List<String> args = new ArrayList<>(List.of(
+                "--spring.profiles.active=bench",
+                "--spring.datasource.driver-class-name=org.h2.Driver",
+                "--spring.datasource.url=jdbc:h2:mem:" + name + ";MODE=MySQL;DB_CLOSE_DELAY=-1",
+                "--spring.datasource.username=sa",
+                "--spring.datasource.password=",
+                "--member.age-index.enabled=false",
+                "--member.username-filter.enabled=false",
+                "--spring.jpa.properties.hibernate.format_sql=false",
+                "--spring.jpa.properties.hibernate.use_sql_comments=false",
+                "--logging.level.root=warn",
+                "--logging.level.org.hibernate.SQL=warn",
+                "--logging.level.org.hibernate.type=warn",
+                "--logging.level.org.hibernate.orm.jdbc.bind=warn"
+        ));
+        args.addAll(List.of(extraArgs));
+
+        ConfigurableApplicationContext context = new SpringApplicationBuilder(QuerydslApplication.class)
+                .web(WebApplicationType.NONE)
+                .run(args.toArray(String[]::new));
+        return new BenchmarkDatabase(context);
+    }
+
+    /**
+     * team TEAM_COUNT 개, member rows 개. member i 는 team (i % TEAM_COUNT + 1), 나이는 i % 100 (team_name 도 같이 채운다)
+     */
+    public BenchmarkDatabase seed(int rows) {
+        JdbcTemplate jdbcTemplate = getBean(JdbcTemplate.class);
+        List<Object[]> teams = new ArrayList<>();
+        for (long t = 1; t <= TEAM_COUNT; t++) {
+            teams.add(new Object[]{t, "team" + t});
+        }
+        jdbcTemplate.batchUpdate("insert into team (team_id, name) values (?, ?)", teams);
+
+        List<Object[]> batch = new ArrayList<>(INSERT_BATCH);
+        for (long i = 1; i <= rows; i++) {
+            long teamId = i % TEAM_COUNT + 1;
+            batch.add(new Object[]{i, "member" + i, (int) (i % 100), teamId, "team" + teamId});
+            if (batch.size() == INSERT_BATCH) {
+                jdbcTemplate.batchUpdate(INSERT_MEMBER, batch);
+                batch.clear();
+            }
+        }
+        if (!batch.isEmpty()) {
+            jdbcTemplate.batchUpdate(INSERT_MEMBER, batch);
+        }
+        return this;
+    }
+
+    public EntityManagerFactory entityManagerFactory() {
+        return getBean(EntityManagerFactory.class);
+    }
+
+    public <T> T getBean(Class<T> type) {
+        return context.getBean(type);
+    }
+
+    @Override
+    public void close() {
+        context.close();
+    }
+}
@@ -0,0 +1,77 @@
+package com.example.querydsl.benchmark;
+
+import com.example.querydsl.domain.Member;
+import com.example.querydsl.domain.Team;
+import com.example.querydsl.service.MemberBulkLoader;
+import jakarta.persistence.EntityManager;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 기존 InitMember 방식(em.persist 루프) vs MemberBulkLoader
+ *
+ * ./gradlew jmh -Pjmh.includes=BulkLoadBenchmark
+ * 점수는 row 하나당 시간(us/op) 이다. rows/s = 1,000,000 / 점수
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 2)
+@Measurement(iterations = 5)
+@OperationsPerInvocation(BulkLoadBenchmark.ROWS)
+public class BulkLoadBenchmark {
+
+    static final int ROWS = 100_000;
+
+    BenchmarkDatabase database;
+    EntityManager em;
+    TransactionTemplate transactionTemplate;
+    JdbcTemplate jdbcTemplate;
+    MemberBulkLoader memberBulkLoader;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        database = BenchmarkDatabase.start("bulkLoad");
+        em = database.getBean(EntityManager.class);
+        transactionTemplate = database.getBean(TransactionTemplate.class);
+        jdbcTemplate = database.getBean(JdbcTemplate.class);
+        memberBulkLoader = database.getBean(MemberBulkLoader.class);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        database.close();
+    }
+
+    @Setup(Level.Iteration)
+    public void truncate() {
+        jdbcTemplate.execute("delete from member");
+        jdbcTemplate.execute("delete from team");
+    }
+
+    /**
+     * 예전 InitMemberService.init 방식 - 하나의 트랜잭션에서 persist 만 반복
+     */
+    @Benchmark
+    public void persistLoop() {
+        transactionTemplate.executeWithoutResult(status -> {
+            Team teamA = new Team("teamA");
+            Team teamB = new Team("teamB");
+            em.persist(teamA);
+            em.persist(teamB);
+
+            for (int i = 0; i < ROWS; i++) {
+                Team selectedTeam = i % 2 == 0 ? teamA : teamB;
+                em.persist(new Member("member" + i, i, selectedTeam));
+            }
+        });
+    }
+
+    @Benchmark
+    public long bulkLoader() {
+        return memberBulkLoader.seed(2, ROWS);
+    }
+}
@@ -0,0 +1,86 @@
+package com.example.querydsl.benchmark;
+
+import com.example.querydsl.service.MemberCsvExportService;
+import org.openjdk.jmh.annotations.*;
+
+import java.io.IOException;
+import java.lang.management.ManagementFactory;
+import java.lang.management.MemoryPoolMXBean;
+import java.lang.management.MemoryType;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 10M 건 전체 CSV export - worker 수별 처리량(rows/s)과 힙 최고 사용량
+ *
+ * ./gradlew jmh -Pjmh.includes=CsvExportBenchmark
+ * 한 번이 수십 초라 SingleShotTime 으로 몇 번만 돈다.
+ * 보조 카운터 rowsPerSecond, peakHeapMegabytes 를 같이 본다.
+ * h2 인메모리라 DB 데이터도 힙에 있어서, export 직전 힙 사용량을 빼고 export 가 더 쓴 만큼만 센다.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 1)
+@Measurement(iterations = 3)
+public class CsvExportBenchmark {
+
+    private static final int ROWS = 10_000_000;
+
+    @Param({"1", "4", "8"})
+    int parallelism;
+
+    BenchmarkDatabase database;
+    MemberCsvExportService exportService;
+    Path target;
+    long baselineHeap;
+
+    @State(Scope.Thread)
+    @AuxCounters(AuxCounters.Type.EVENTS)
+    public static class Numbers {
+        public long rowsPerSecond;
+        public long peakHeapMegabytes;
+    }
+
+    @Setup(Level.Trial)
+    public void setUp() throws IOException {
+        database = BenchmarkDatabase.start("csvexport" + parallelism,
+                "--member.csv-export.parallelism=" + parallelism).seed(ROWS);
+        exportService = database.getBean(MemberCsvExportService.class);
+        target = Files.createTempFile("members", ".csv");
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws IOException {
+        database.close();
+        Files.deleteIfExists(target);
+    }
+
+    @Setup(Level.Iteration)
+    public void resetPeak() {
+        System.gc();
+        baselineHeap = 0;
+        for (MemoryPoolMXBean pool : ManagementFactory.getMemoryPoolMXBeans()) {
+            pool.resetPeakUsage();
+            if (pool.getType() == MemoryType.HEAP) {
+                baselineHeap += pool.getUsage().getUsed();
+            }
+        }
+    }
+
+    @Benchmark
+    public MemberCsvExportService.Result export(Numbers numbers) throws IOException {
+        MemberCsvExportService.Result result = exportService.export(target);
+
+        long peak = 0;
+        for (MemoryPoolMXBean pool : ManagementFactory.getMemoryPoolMXBeans()) {
+            if (pool.getType() == MemoryType.HEAP) {
+                peak += pool.getPeakUsage().getUsed();
+            }
+        }
+        numbers.rowsPerSecond = result.rowsPerSecond();
+        numbers.peakHeapMegabytes = (peak - baselineHeap) / (1024 * 1024);
+        return result;
+    }
+}
@@ -0,0 +1,84 @@
+package com.example.querydsl.benchmark;
+
+import com.example.querydsl.dto.MemberField;
+import com.example.querydsl.dto.MemberSearchCondition;
+import com.example.querydsl.repository.MemberRepository;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 전체 컬럼(MemberTeamDto, team 조인) vs fields= 로 고른 컬럼만 조회 + json 직렬화
+ *
+ * ./gradlew jmh -Pjmh.includes=FieldProjectionBenchmark
+ * 보조 카운터 responseBytes 가 한 번 응답(op)당 json 바이트 수다.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class FieldProjectionBenchmark {
+
+    private static final int ROWS = 1_000_000;
+
+    @Param({"20", "1000"})
+    int size;
+
+    /**
+     * 기본 검색과 비교할 fields 조합
+     */
+    @Param({"memberId,username", "memberId,username,teamId", "memberId,username,teamName"})
+    String fields;
+
+    BenchmarkDatabase database;
+    MemberRepository memberRepository;
+    ObjectMapper objectMapper;
+
+    List<MemberField> selected;
+    Pageable pageable;
+
+    final MemberSearchCondition condition = new MemberSearchCondition();
+
+    @State(Scope.Thread)
+    @AuxCounters(AuxCounters.Type.EVENTS)
+    public static class Bytes {
+        public long responseBytes;
+    }
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        database = BenchmarkDatabase.start("fields" + size + fields.length()).seed(ROWS);
+        memberRepository = database.getBean(MemberRepository.class);
+        objectMapper = database.getBean(ObjectMapper.class);
+
+        selected = MemberField.parse(fields);
+        pageable = PageRequest.of(100, size);
+        condition.setAgeGoe(20);
+        condition.setAgeLoe(60);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        database.close();
+    }
+
+    @Benchmark
+    public byte[] allColumns(Bytes bytes) throws JsonProcessingException {
+        byte[] json = objectMapper.writeValueAsBytes(
+                memberRepository.searchPageComplex(condition, pageable).getContent());
+        bytes.responseBytes += json.length;
+        return json;
+    }
+
+    @Benchmark
+    public byte[] selectedColumns(Bytes bytes) throws JsonProcessingException {
+        byte[] json = objectMapper.writeValueAsBytes(
+                memberRepository.searchPageFields(condition, selected, pageable).getContent());
+        bytes.responseBytes += json.length;
+        return json;
+    }
+}
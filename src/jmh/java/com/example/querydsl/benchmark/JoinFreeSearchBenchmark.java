@@ -0,0 +1,68 @@
+package com.example.querydsl.benchmark;
+
+import com.example.querydsl.dto.MemberSearchCondition;
+import com.example.querydsl.repository.MemberSearchQueryCache;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * team 조인 검색 vs member.team_name (반정규화) 조인 없는 검색
+ *
+ * ./gradlew jmh -Pjmh.includes=JoinFreeSearchBenchmark
+ * 10M 건은 h2 인메모리라 힙이 넉넉해야 한다. (jmh jvmArgs 에 -Xmx8g 정도)
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class JoinFreeSearchBenchmark {
+
+    private static final int PAGE_SIZE = 20;
+
+    @Param({"1000000", "10000000"})
+    int rows;
+
+    /**
+     * team : 팀 이름 조건만, teamAndAge : 팀 이름 + 나이 범위, count : 팀 이름 조건 count
+     */
+    @Param({"team", "teamAndAge", "count"})
+    String shape;
+
+    BenchmarkDatabase database;
+    MemberSearchQueryCache queryCache;
+
+    final MemberSearchCondition condition = new MemberSearchCondition();
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        database = BenchmarkDatabase.start("joinfree" + rows + shape).seed(rows);
+        queryCache = database.getBean(MemberSearchQueryCache.class);
+
+        condition.setTeamName("team3");
+        if (shape.equals("teamAndAge")) {
+            condition.setAgeGoe(30);
+            condition.setAgeLoe(40);
+        }
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        database.close();
+    }
+
+    @Benchmark
+    public Object join() {
+        if (shape.equals("count")) {
+            return queryCache.count(condition);
+        }
+        return queryCache.fetch(condition, 0, PAGE_SIZE);
+    }
+
+    @Benchmark
+    public Object joinFree() {
+        if (shape.equals("count")) {
+            return queryCache.countJoinFree(condition);
+        }
+        return queryCache.fetchJoinFree(condition, 0, PAGE_SIZE);
+    }
+}
@@ -0,0 +1,67 @@
+package com.example.querydsl.benchmark;
+
+import com.example.querydsl.dto.MemberCursorPage;
+import com.example.querydsl.dto.MemberSearchCondition;
+import com.example.querydsl.dto.MemberTeamDto;
+import com.example.querydsl.repository.MemberRepository;
+import com.example.querydsl.repository.MemberSearchQueryCache;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * offset 페이징(/v3) vs deferred join(/v3?deferredJoin=true) vs 커서 페이징(/v4) 페이지 깊이별 응답 시간
+ *
+ * ./gradlew jmh -Pjmh.includes=PagingBenchmark
+ * 커서 방식은 페이지 깊이와 상관없이 일정해야 한다.
+ * 세 방식 모두 member.id 순서로 같은 페이지를 돌려준다. (offset 도 ORDER BY member.id 를 포함해서 잰다)
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class PagingBenchmark {
+
+    private static final int PAGE_SIZE = 20;
+    private static final int MAX_PAGE = 100_000;
+
+    @Param({"1", "1000", "100000"})
+    int page;
+
+    BenchmarkDatabase database;
+    MemberSearchQueryCache queryCache;
+    MemberRepository memberRepository;
+
+    final MemberSearchCondition condition = new MemberSearchCondition();
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        database = BenchmarkDatabase.start("paging" + page).seed(MAX_PAGE * PAGE_SIZE + PAGE_SIZE);
+        queryCache = database.getBean(MemberSearchQueryCache.class);
+        memberRepository = database.getBean(MemberRepository.class);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        database.close();
+    }
+
+    @Benchmark
+    public List<MemberTeamDto> offset() {
+        // 컨텐츠 쿼리만 비교 (count 쿼리 제외)
+        return queryCache.fetch(condition, (long) (page - 1) * PAGE_SIZE, PAGE_SIZE);
+    }
+
+    @Benchmark
+    public List<MemberTeamDto> deferredJoin() {
+        // id 만 offset 으로 넘기고 그 페이지 row 만 다시 읽는다. (count 쿼리 제외)
+        return queryCache.fetchByIds(queryCache.fetchIds(condition, (long) (page - 1) * PAGE_SIZE, PAGE_SIZE));
+    }
+
+    @Benchmark
+    public MemberCursorPage keyset() {
+        // member id 는 1 부터 순서대로 들어가 있어서 (page - 1) * size 가 직전 페이지의 마지막 id
+        Long lastMemberId = page == 1 ? null : (long) (page - 1) * PAGE_SIZE;
+        return memberRepository.searchByCursor(condition, lastMemberId, PAGE_SIZE);
+    }
+}
@@ -0,0 +1,55 @@
+package com.example.querydsl.benchmark;
+
+import com.example.querydsl.dto.MemberSearchCondition;
+import com.example.querydsl.dto.MemberTeamDto;
+import com.example.querydsl.repository.MemberRepository;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageRequest;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * searchPageComplex 순차 count vs 병렬 count, 동시 요청 16개 기준 응답 시간 분포(p50 / p99)
+ *
+ * ./gradlew jmh -Pjmh.includes=ParallelCountBenchmark
+ * SampleTime 모드라 결과에 p0.50, p0.99 가 같이 나온다.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.SampleTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Threads(16)
+public class ParallelCountBenchmark {
+
+    private static final int ROWS = 200_000;
+
+    @Param({"false", "true"})
+    boolean parallelCount;
+
+    BenchmarkDatabase database;
+    MemberRepository memberRepository;
+
+    final PageRequest pageRequest = PageRequest.of(10, 20);
+    final MemberSearchCondition condition = new MemberSearchCondition();
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        database = BenchmarkDatabase.start("parallelCount" + parallelCount,
+                        "--member.search.parallel-count.enabled=" + parallelCount,
+                        "--spring.datasource.hikari.maximum-pool-size=40")
+                .seed(ROWS);
+        memberRepository = database.getBean(MemberRepository.class);
+        condition.setAgeGoe(10);
+        condition.setAgeLoe(80);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        database.close();
+    }
+
+    @Benchmark
+    public Page<MemberTeamDto> searchPageComplex() {
+        return memberRepository.searchPageComplex(condition, pageRequest);
+    }
+}
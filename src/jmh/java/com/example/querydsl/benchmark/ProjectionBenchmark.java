@@ -0,0 +1,156 @@
+package com.example.querydsl.benchmark;
+
+import com.example.querydsl.dto.MemberSearchCondition;
+import com.example.querydsl.dto.MemberTeamDto;
+import com.example.querydsl.dto.QMemberTeamDto;
+import com.example.querydsl.repository.MemberSearchQueryCache;
+import com.querydsl.core.Tuple;
+import com.querydsl.core.types.Projections;
+import com.querydsl.jpa.impl.JPAQueryFactory;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.EntityManagerFactory;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import static com.example.querydsl.domain.QMember.member;
+import static com.example.querydsl.domain.QTeam.team;
+
+/**
+ * MemberTeamDto 를 만드는 프로젝션 방식별 처리량 / 할당량 비교
+ *
+ * ./gradlew jmh -Pjmh.includes=ProjectionBenchmark
+ * gc 프로파일러의 gc.alloc.rate.norm 이 한 번 조회(op)당 할당 바이트다.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+public class ProjectionBenchmark {
+
+    @Param({"1000", "100000", "1000000"})
+    int rows;
+
+    BenchmarkDatabase database;
+    EntityManagerFactory emf;
+    MemberSearchQueryCache queryCache;
+
+    EntityManager em;
+    JPAQueryFactory queryFactory;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        database = BenchmarkDatabase.start("projection" + rows).seed(rows);
+        emf = database.entityManagerFactory();
+        queryCache = database.getBean(MemberSearchQueryCache.class);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        database.close();
+    }
+
+    @Setup(Level.Invocation)
+    public void openEntityManager() {
+        em = emf.createEntityManager();
+        queryFactory = new JPAQueryFactory(em);
+    }
+
+    @TearDown(Level.Invocation)
+    public void closeEntityManager() {
+        em.close();
+    }
+
+    @Benchmark
+    public List<MemberTeamDto> bean() {
+        return queryFactory
+                .select(Projections.bean(MemberTeamDto.class,
+                        member.id.as("memberId"),
+                        member.username,
+                        member.age,
+                        team.id.as("teamId"),
+                        team.name.as("teamName")))
+                .from(member)
+                .leftJoin(member.team, team)
+                .fetch();
+    }
+
+    @Benchmark
+    public List<MemberTeamDto> fields() {
+        return queryFactory
+                .select(Projections.fields(MemberTeamDto.class,
+                        member.id.as("memberId"),
+                        member.username,
+                        member.age,
+                        team.id.as("teamId"),
+                        team.name.as("teamName")))
+                .from(member)
+                .leftJoin(member.team, team)
+                .fetch();
+    }
+
+    @Benchmark
+    public List<MemberTeamDto> constructor() {
+        return queryFactory
+                .select(Projections.constructor(MemberTeamDto.class,
+                        member.id,
+                        member.username,
+                        member.age,
+                        team.id,
+                        team.name))
+                .from(member)
+                .leftJoin(member.team, team)
+                .fetch();
+    }
+
+    @Benchmark
+    public List<MemberTeamDto> queryProjection() {
+        return queryFactory
+                .select(new QMemberTeamDto(
+                        member.id,
+                        member.username,
+                        member.age,
+                        team.id,
+                        team.name))
+                .from(member)
+                .leftJoin(member.team, team)
+                .fetch();
+    }
+
+    @Benchmark
+    public List<MemberTeamDto> tuple() {
+        List<Tuple> tuples = queryFactory
+                .select(member.id, member.username, member.age, team.id, team.name)
+                .from(member)
+                .leftJoin(member.team, team)
+                .fetch();
+
+        List<MemberTeamDto> result = new ArrayList<>(tuples.size());
+        for (Tuple tuple : tuples) {
+            result.add(new MemberTeamDto(
+                    tuple.get(member.id),
+                    tuple.get(member.username),
+                    tuple.get(member.age),
+                    tuple.get(team.id),
+                    tuple.get(team.name)));
+        }
+        return result;
+    }
+
+    @Benchmark
+    public List<MemberTeamDto> jpqlNew() {
+        return em.createQuery(
+                        "select new com.example.querydsl.dto.MemberTeamDto(m.id, m.username, m.age, t.id, t.name)" +
+                                " from Member m left join m.team t", MemberTeamDto.class)
+                .getResultList();
+    }
+
+    /**
+     * 운영 코드(MemberSearchQueryCache) 경로 - QMemberTeamDto + 캐시된 JPQL
+     */
+    @Benchmark
+    public List<MemberTeamDto> compiledQueryProjection() {
+        return queryCache.fetch(new MemberSearchCondition());
+    }
+}
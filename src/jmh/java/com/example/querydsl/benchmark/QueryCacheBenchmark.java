@@ -0,0 +1,94 @@
+package com.example.querydsl.benchmark;
+
+import com.example.querydsl.dto.MemberSearchCondition;
+import com.example.querydsl.dto.MemberTeamDto;
+import com.example.querydsl.dto.QMemberTeamDto;
+import com.example.querydsl.repository.MemberSearchQueryCache;
+import com.querydsl.jpa.impl.JPAQueryFactory;
+import jakarta.persistence.EntityManager;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import static com.example.querydsl.domain.QMember.member;
+import static com.example.querydsl.domain.QTeam.team;
+import static org.springframework.util.StringUtils.hasText;
+
+/**
+ * 검색 조건 shape 별 JPQL 캐시(MemberSearchQueryCache) 적용 전 / 후 - 8 스레드 동시 호출
+ *
+ * ./gradlew jmh -Pjmh.includes=QueryCacheBenchmark
+ * before : 요청마다 querydsl 식을 만들고 JPQL 로 직렬화 (캐시 도입 전 search 와 같은 코드)
+ * after  : shape 별로 직렬화 해둔 JPQL 에 바인딩 값만 세팅
+ * 16가지 shape 를 돌아가며 호출하고, DB 시간이 묻히지 않게 데이터는 작게 둔다.
+ * gc 프로파일러의 gc.alloc.rate.norm 이 한 번 검색(op)당 할당 바이트다.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.SampleTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Threads(8)
+public class QueryCacheBenchmark {
+
+    private static final int ROWS = 1000;
+
+    BenchmarkDatabase database;
+    MemberSearchQueryCache queryCache;
+    JPAQueryFactory queryFactory;
+
+    final MemberSearchCondition[] conditions = new MemberSearchCondition[MemberSearchCondition.SHAPE_COUNT];
+
+    @State(Scope.Thread)
+    public static class Shape {
+        int next;
+    }
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        database = BenchmarkDatabase.start("querycache").seed(ROWS);
+        queryCache = database.getBean(MemberSearchQueryCache.class);
+        // 트랜잭션 밖에서 쿼리마다 EntityManager 를 새로 여는 공유 프록시 (스레드 안전)
+        queryFactory = new JPAQueryFactory(database.getBean(EntityManager.class));
+
+        for (int shape = 0; shape < conditions.length; shape++) {
+            MemberSearchCondition condition = new MemberSearchCondition();
+            if ((shape & MemberSearchCondition.USERNAME) != 0) condition.setUsername("member7");
+            if ((shape & MemberSearchCondition.TEAM_NAME) != 0) condition.setTeamName("team3");
+            if ((shape & MemberSearchCondition.AGE_GOE) != 0) condition.setAgeGoe(90);
+            if ((shape & MemberSearchCondition.AGE_LOE) != 0) condition.setAgeLoe(95);
+            conditions[shape] = condition;
+        }
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        database.close();
+    }
+
+    @Benchmark
+    public List<MemberTeamDto> before(Shape shape) {
+        MemberSearchCondition condition = conditions[shape.next++ & (conditions.length - 1)];
+        return queryFactory
+                .select(new QMemberTeamDto(
+                        member.id.as("memberId"),
+                        member.username,
+                        member.age,
+                        team.id.as("teamId"),
+                        team.name.as("teamName")
+                ))
+                .from(member)
+                .leftJoin(member.team, team)
+                .where(
+                        hasText(condition.getUsername()) ? member.username.eq(condition.getUsername()) : null,
+                        hasText(condition.getTeamName()) ? team.name.eq(condition.getTeamName()) : null,
+                        condition.getAgeGoe() != null ? member.age.goe(condition.getAgeGoe()) : null,
+                        condition.getAgeLoe() != null ? member.age.loe(condition.getAgeLoe()) : null
+                )
+                .fetch();
+    }
+
+    @Benchmark
+    public List<MemberTeamDto> after(Shape shape) {
+        return queryCache.fetch(conditions[shape.next++ & (conditions.length - 1)]);
+    }
+}
@@ -0,0 +1,110 @@
+package com.example.querydsl.benchmark;
+
+import com.example.querydsl.dto.MemberSearchCondition;
+import com.example.querydsl.dto.MemberTeamDto;
+import com.example.querydsl.service.MemberSearchCoalescer;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 같은 조건의 /v1 검색 500개를 한꺼번에 보냈을 때 실제 DB 조회 수 (합치기 on / off)
+ *
+ * ./gradlew jmh -Pjmh.includes=SearchCoalescerBenchmark
+ * 결과의 executed (DB 조회 수) / shared (결과를 나눠 받은 수) 가 호출 한번 (500 요청) 당 평균이다.
+ * 몇개가 합쳐지는지는 타이밍에 따라 달라서 MemberSearchCoalescerTest 처럼 단정하지 않고 재기만 한다.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+public class SearchCoalescerBenchmark {
+
+    private static final int REQUESTS = 500;
+    private static final int ROWS = 100_000;
+
+    @Param({"false", "true"})
+    boolean coalesce;
+
+    BenchmarkDatabase database;
+    MemberSearchCoalescer coalescer;
+    Counter executed;
+    Counter shared;
+    ExecutorService executor;
+
+    final MemberSearchCondition condition = new MemberSearchCondition();
+
+    /**
+     * 호출 한번에 나간 DB 조회 / 나눠 받은 요청 수 (jmh 결과에 같이 나온다)
+     */
+    @State(Scope.Thread)
+    @AuxCounters(AuxCounters.Type.EVENTS)
+    public static class Requests {
+        public long executed;
+        public long shared;
+
+        @Setup(Level.Iteration)
+        public void reset() {
+            executed = 0;
+            shared = 0;
+        }
+    }
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        database = BenchmarkDatabase.start("coalesce" + coalesce,
+                        "--member.search.coalesce.enabled=" + coalesce,
+                        "--spring.datasource.hikari.maximum-pool-size=40")
+                .seed(ROWS);
+        coalescer = database.getBean(MemberSearchCoalescer.class);
+        MeterRegistry registry = database.getBean(MeterRegistry.class);
+        executed = registry.counter("member.search.coalesce", "result", "executed");
+        shared = registry.counter("member.search.coalesce", "result", "shared");
+        executor = Executors.newFixedThreadPool(REQUESTS);
+        condition.setTeamName("team3");
+        condition.setAgeGoe(10);
+        condition.setAgeLoe(20);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        executor.shutdownNow();
+        database.close();
+    }
+
+    @Benchmark
+    public int burst(Requests requests) throws Exception {
+        double executedBefore = executed.count();
+        double sharedBefore = shared.count();
+
+        // 500개를 다 띄워 놓고 동시에 출발시킨다.
+        CountDownLatch start = new CountDownLatch(1);
+        List<Future<List<MemberTeamDto>>> results = new ArrayList<>(REQUESTS);
+        for (int i = 0; i < REQUESTS; i++) {
+            Callable<List<MemberTeamDto>> search = () -> {
+                start.await();
+                return coalescer.search(condition);
+            };
+            results.add(executor.submit(search));
+        }
+        start.countDown();
+
+        int rows = 0;
+        for (Future<List<MemberTeamDto>> result : results) {
+            rows += result.get().size();
+        }
+
+        // 합치기를 끄면 카운터가 안 올라가니 요청 수 그대로가 DB 조회 수다.
+        requests.executed += coalesce ? (long) (executed.count() - executedBefore) : REQUESTS;
+        requests.shared += (long) (shared.count() - sharedBefore);
+        return rows;
+    }
+}
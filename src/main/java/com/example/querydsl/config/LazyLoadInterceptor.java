@@ -0,0 +1,31 @@
+package com.example.querydsl.config;
+
+import com.example.querydsl.support.LazyLoadDetector;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.web.servlet.HandlerInterceptor;
+
+/**
+ * 요청 하나를 N+1 감지 구간으로 감싼다.
+ */
+public class LazyLoadInterceptor implements HandlerInterceptor {
+
+    private final int threshold;
+    private final boolean failOnExceed;
+
+    public LazyLoadInterceptor(int threshold, boolean failOnExceed) {
+        this.threshold = threshold;
+        this.failOnExceed = failOnExceed;
+    }
+
+    @Override
+    public boolean preHandle(HttpServletRequest request, HttpServletResponse response, Object handler) {
+        LazyLoadDetector.begin(request.getMethod() + " " + request.getRequestURI(), threshold, failOnExceed);
+        return true;
+    }
+
+    @Override
+    public void afterCompletion(HttpServletRequest request, HttpServletResponse response, Object handler, Exception ex) {
+        LazyLoadDetector.end();
+    }
+}
@@ -0,0 +1,54 @@
+package com.example.querydsl.config;
+
+import com.zaxxer.hikari.HikariDataSource;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.boot.jdbc.DataSourceBuilder;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Primary;
+import org.springframework.jdbc.datasource.LazyConnectionDataSourceProxy;
+
+import javax.sql.DataSource;
+import java.util.Map;
+
+/**
+ * primary(쓰기) / replica(읽기) 커넥션 풀을 따로 두고 트랜잭션 readOnly 여부로 라우팅 한다.
+ *
+ * spring.datasource.routing.enabled=true 일 때만 동작한다. (false 면 spring.datasource 단일 풀)
+ * 풀 설정은 spring.datasource.primary.*, spring.datasource.replica.* (hikari 프로퍼티 그대로)
+ */
+@Configuration
+@ConditionalOnProperty(prefix = "spring.datasource.routing", name = "enabled", havingValue = "true")
+public class ReplicationDataSourceConfig {
+
+    @Bean
+    @ConfigurationProperties("spring.datasource.primary")
+    public HikariDataSource primaryDataSource() {
+        return DataSourceBuilder.create().type(HikariDataSource.class).build();
+    }
+
+    @Bean
+    @ConfigurationProperties("spring.datasource.replica")
+    public HikariDataSource replicaDataSource() {
+        return DataSourceBuilder.create().type(HikariDataSource.class).build();
+    }
+
+    @Primary
+    @Bean
+    public DataSource dataSource(@Qualifier("primaryDataSource") DataSource primaryDataSource,
+                                 @Qualifier("replicaDataSource") DataSource replicaDataSource) {
+        return routingDataSource(primaryDataSource, replicaDataSource);
+    }
+
+    public static DataSource routingDataSource(DataSource primaryDataSource, DataSource replicaDataSource) {
+        ReplicationRoutingDataSource routingDataSource = new ReplicationRoutingDataSource();
+        routingDataSource.setTargetDataSources(Map.of(
+                ReplicationRoutingDataSource.PRIMARY, primaryDataSource,
+                ReplicationRoutingDataSource.REPLICA, replicaDataSource));
+        routingDataSource.setDefaultTargetDataSource(primaryDataSource);
+        routingDataSource.afterPropertiesSet();
+        return new LazyConnectionDataSourceProxy(routingDataSource);
+    }
+}
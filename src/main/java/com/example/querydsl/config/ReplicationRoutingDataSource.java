@@ -0,0 +1,21 @@
+package com.example.querydsl.config;
+
+import org.springframework.jdbc.datasource.lookup.AbstractRoutingDataSource;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+/**
+ * 읽기 전용 트랜잭션(@Transactional(readOnly = true)) 은 replica, 나머지는 primary 로 보낸다.
+ *
+ * 트랜잭션 시작 시점에는 아직 readOnly 여부가 동기화 되기 전이라
+ * 반드시 LazyConnectionDataSourceProxy 로 감싸서 실제 쿼리 직전에 커넥션을 고르게 해야 한다.
+ */
+public class ReplicationRoutingDataSource extends AbstractRoutingDataSource {
+
+    public static final String PRIMARY = "primary";
+    public static final String REPLICA = "replica";
+
+    @Override
+    protected Object determineCurrentLookupKey() {
+        return TransactionSynchronizationManager.isCurrentTransactionReadOnly() ? REPLICA : PRIMARY;
+    }
+}
@@ -0,0 +1,10 @@
+package com.example.querydsl.config;
+
+import org.springframework.context.annotation.Configuration;
+import org.springframework.scheduling.annotation.EnableScheduling;
+
+// 정기 작업 (team_stats 정합성 작업 등)
+@Configuration
+@EnableScheduling
+public class SchedulingConfig {
+}
@@ -0,0 +1,74 @@
+package com.example.querydsl.config;
+
+import jakarta.persistence.EntityManagerFactory;
+import lombok.RequiredArgsConstructor;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.CacheRegionStatistics;
+import org.hibernate.stat.Statistics;
+import org.springframework.boot.actuate.endpoint.annotation.Endpoint;
+import org.springframework.boot.actuate.endpoint.annotation.ReadOperation;
+import org.springframework.stereotype.Component;
+
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+import java.lang.management.ManagementFactory;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * /actuator/l2cache
+ *
+ * 캐시 영역(region)별 hit / miss / put (hibernate 통계) + evict (ehcache jsr107 통계)
+ * hit / miss 카운터 자체는 /actuator/metrics/hibernate.second.level.cache.requests 로도 볼 수 있다.
+ */
+@Component
+@Endpoint(id = "l2cache")
+@RequiredArgsConstructor
+public class SecondLevelCacheEndpoint {
+
+    private final EntityManagerFactory emf;
+
+    @ReadOperation
+    public Map<String, Object> regions() {
+        Statistics statistics = emf.unwrap(SessionFactory.class).getStatistics();
+        Map<String, Object> regions = new LinkedHashMap<>();
+        for (String regionName : statistics.getSecondLevelCacheRegionNames()) {
+            CacheRegionStatistics region = statistics.getCacheRegionStatistics(regionName);
+            if (region == null) {
+                continue;
+            }
+            Map<String, Object> values = new LinkedHashMap<>();
+            values.put("hit", region.getHitCount());
+            values.put("miss", region.getMissCount());
+            values.put("put", region.getPutCount());
+            values.put("eviction", evictions(regionName));
+            regions.put(regionName, values);
+        }
+
+        Map<String, Object> result = new LinkedHashMap<>();
+        result.put("statisticsEnabled", statistics.isStatisticsEnabled());
+        result.put("regions", regions);
+        result.put("queryCache", Map.of(
+                "hit", statistics.getQueryCacheHitCount(),
+                "miss", statistics.getQueryCacheMissCount(),
+                "put", statistics.getQueryCachePutCount()));
+        return result;
+    }
+
+    /**
+     * ehcache 가 JMX 로 등록한 javax.cache:type=CacheStatistics 의 CacheEvictions
+     */
+    private long evictions(String regionName) {
+        MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+        try {
+            for (ObjectName name : server.queryNames(new ObjectName("javax.cache:type=CacheStatistics,*"), null)) {
+                if (regionName.equals(name.getKeyProperty("Cache"))) {
+                    return (Long) server.getAttribute(name, "CacheEvictions");
+                }
+            }
+        } catch (Exception e) {
+            return -1;
+        }
+        return -1;
+    }
+}
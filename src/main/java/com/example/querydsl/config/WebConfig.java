@@ -0,0 +1,24 @@
+package com.example.querydsl.config;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.web.servlet.config.annotation.InterceptorRegistry;
+import org.springframework.web.servlet.config.annotation.WebMvcConfigurer;
+
+@Configuration
+public class WebConfig implements WebMvcConfigurer {
+
+    private final int lazyLoadThreshold;
+    private final boolean lazyLoadFailOnExceed;
+
+    public WebConfig(@Value("${member.lazy-load.threshold:10}") int lazyLoadThreshold,
+                     @Value("${member.lazy-load.fail-on-exceed:false}") boolean lazyLoadFailOnExceed) {
+        this.lazyLoadThreshold = lazyLoadThreshold;
+        this.lazyLoadFailOnExceed = lazyLoadFailOnExceed;
+    }
+
+    @Override
+    public void addInterceptors(InterceptorRegistry registry) {
+        registry.addInterceptor(new LazyLoadInterceptor(lazyLoadThreshold, lazyLoadFailOnExceed));
+    }
+}
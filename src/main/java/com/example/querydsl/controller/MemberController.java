@@ -1,48 +1,142 @@
 package com.example.querydsl.controller;
 
+import com.example.querydsl.dto.InvalidSearchParameterException;
+import com.example.querydsl.dto.MemberCursor;
+import com.example.querydsl.dto.MemberCursorPage;
+import com.example.querydsl.dto.MemberField;
 import com.example.querydsl.dto.MemberSearchCondition;
 import com.example.querydsl.dto.MemberTeamDto;
-import com.example.querydsl.repository.MemberJpaRepository;
 import com.example.querydsl.repository.MemberRepository;
+import com.example.querydsl.service.MemberExportService;
+import com.example.querydsl.service.MemberSearchCoalescer;
+import jakarta.servlet.http.HttpServletResponse;
 import lombok.RequiredArgsConstructor;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
+import org.springframework.http.HttpStatus;
+import org.springframework.web.bind.annotation.ExceptionHandler;
 import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.ResponseStatus;
 import org.springframework.web.bind.annotation.RestController;
 
+import java.io.IOException;
 import java.util.List;
 
 @RestController
 @RequiredArgsConstructor
 public class MemberController {
-    private final MemberJpaRepository memberJpaRepository;
+    private static final int MAX_CURSOR_PAGE_SIZE = 1000;
+
     private final MemberRepository memberRepository;
+    private final MemberExportService memberExportService;
+    private final MemberSearchCoalescer memberSearchCoalescer;
 
     /**
      * http://127.0.0.1:8080/v1/members?teamName=teamB
      * http://127.0.0.1:8080/v1/members?teamName=teamB&ageGoe=31
      * http://127.0.0.1:8080/v1/members?teamName=teamB&ageGoe=31&ageLoe=35
      * http://127.0.0.1:8080/v1/members?teamName=teamB&ageGoe=31&ageLoe=35&username=member31
-     * 동적 쿼리 요청 예시
+     * 동적 쿼리 요청 예시 (같은 조건이 동시에 몰리면 DB 조회는 한번만 - MemberSearchCoalescer)
+     *
+     * http://127.0.0.1:8080/v1/members?fields=memberId,username (고른 컬럼만 조회 / 응답, team 조인 X)
+     * fields 는 v2, v3 에서도 같다. (memberId, username, age, teamId, teamName)
      */
     @GetMapping("/v1/members")
-    public List<MemberTeamDto> searchMemberV1(MemberSearchCondition condition) {
-        return memberJpaRepository.search(condition);
+    public List<?> searchMemberV1(MemberSearchCondition condition,
+                                  @RequestParam(required = false) String fields) {
+        if (fields != null) {
+            return memberRepository.searchFields(condition, MemberField.parse(fields));
+        }
+        return memberSearchCoalescer.search(condition);
+    }
+
+    /**
+     * http://127.0.0.1:8080/v1/members/export?teamName=teamB
+     *
+     * v1 과 같은 조건이지만 List 로 모으지 않고 NDJSON(application/x-ndjson) 으로 바로 흘려보낸다.
+     * 대용량 조회도 메모리 사용량이 일정하다.
+     */
+    @GetMapping(value = "/v1/members/export", produces = "application/x-ndjson")
+    public void exportMemberV1(MemberSearchCondition condition, HttpServletResponse response) throws IOException {
+        response.setContentType("application/x-ndjson");
+        response.setCharacterEncoding("UTF-8");
+        memberExportService.exportNdjson(condition, response.getOutputStream());
     }
 
     @GetMapping("/v2/members")
-    public Page<MemberTeamDto> searchMemberV2(MemberSearchCondition condition, Pageable pageable) {
+    public Page<?> searchMemberV2(MemberSearchCondition condition, Pageable pageable,
+                                  @RequestParam(required = false) String fields) {
+        if (fields != null) {
+            return memberRepository.searchPageFields(condition, MemberField.parse(fields), pageable);
+        }
         return memberRepository.searchPageSimple(condition, pageable);
     }
 
     /**
      * http://127.0.0.1:8080/v3/members?page=0&size=110
+     * http://127.0.0.1:8080/v3/members?teamName=teamB&joinFree=true (team 조인 없이 member.team_name 으로 조회)
+     * http://127.0.0.1:8080/v3/members?page=5000&size=20&deferredJoin=true (id 만 먼저 페이징 -> 깊은 페이지용)
+     * http://127.0.0.1:8080/v3/members?ageGoe=20&approximateCount=true (큰 결과는 totalElements 가 추정치, totalExact / totalError 로 표시)
      *
      * sort : sort 정렬은 조금만 복잡해져도 동작을 안할 가능성이 있다.
      * sort 보나느 파라미터를 직접 받아서 orderby조건에 넣어서 처리 하자.
      */
     @GetMapping("/v3/members")
-    public Page<MemberTeamDto> searchMemberV3(MemberSearchCondition condition, Pageable pageable) {
-        return memberRepository.searchPageComplex(condition, pageable);
+    public Page<?> searchMemberV3(MemberSearchCondition condition, Pageable pageable,
+                                  @RequestParam(defaultValue = "false") boolean joinFree,
+                                  @RequestParam(defaultValue = "false") boolean deferredJoin,
+                                  @RequestParam(defaultValue = "false") boolean approximateCount,
+                                  @RequestParam(required = false) String fields) {
+        if (fields != null) {
+            return memberRepository.searchPageFields(condition, MemberField.parse(fields), pageable);
+        }
+        if (joinFree) {
+            return memberRepository.searchPageJoinFree(condition, pageable);
+        }
+        if (deferredJoin) {
+            return memberRepository.searchPageDeferredJoin(condition, pageable);
+        }
+        if (approximateCount) {
+            return memberRepository.searchPageEstimated(condition, pageable);
+        }
+        return memberSearchCoalescer.searchPageComplex(condition, pageable);
+    }
+
+    /**
+     * http://127.0.0.1:8080/v4/members?size=20
+     * http://127.0.0.1:8080/v4/members?teamName=teamB&size=20&cursor={이전 응답의 nextCursor}
+     *
+     * 커서 방식은 몇 번째 페이지든 조회 비용이 같다. (대신 특정 페이지로 바로 점프는 불가)
+     * offset 방식과의 페이지 깊이별 비교는 jmh PagingBenchmark
+     */
+    @GetMapping("/v4/members")
+    public MemberCursorPage searchMemberV4(MemberSearchCondition condition,
+                                           @RequestParam(required = false) String cursor,
+                                           @RequestParam(defaultValue = "20") int size) {
+        if (size < 1 || size > MAX_CURSOR_PAGE_SIZE) {
+            throw new InvalidSearchParameterException("size must be between 1 and " + MAX_CURSOR_PAGE_SIZE);
+        }
+        return memberRepository.searchByCursor(condition, MemberCursor.decode(cursor), size);
+    }
+
+    /**
+     * http://127.0.0.1:8080/v5/members?page=0&size=20
+     *
+     * 무한 스크롤용 - 전체 건수(totalElements, totalPages) 없이 hasNext 만 내려준다. count 쿼리 X
+     */
+    @GetMapping("/v5/members")
+    public Slice<MemberTeamDto> searchMemberV5(MemberSearchCondition condition, Pageable pageable) {
+        return memberRepository.searchSlice(condition, pageable);
+    }
+
+    /**
+     * 파라미터 파싱(cursor, fields, size) 오류만 400 으로 돌려준다. 그 외 예외는 서버 오류 그대로 둔다.
+     */
+    @ExceptionHandler(InvalidSearchParameterException.class)
+    @ResponseStatus(HttpStatus.BAD_REQUEST)
+    public String badRequest(InvalidSearchParameterException e) {
+        return e.getMessage();
     }
 }
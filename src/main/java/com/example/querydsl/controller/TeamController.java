@@ -0,0 +1,26 @@
+package com.example.querydsl.controller;
+
+import com.example.querydsl.dto.TeamStatsDto;
+import com.example.querydsl.repository.TeamStatsQueryRepository;
+import lombok.RequiredArgsConstructor;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RestController;
+
+import java.util.List;
+
+@RestController
+@RequiredArgsConstructor
+public class TeamController {
+
+    private final TeamStatsQueryRepository teamStatsQueryRepository;
+
+    /**
+     * http://127.0.0.1:8080/v1/teams/stats
+     *
+     * 팀별 member 수 / 나이 합계, 평균, 최소, 최대 - 미리 집계된 team_stats 를 읽어서 팀 수 만큼만 조회한다.
+     */
+    @GetMapping("/v1/teams/stats")
+    public List<TeamStatsDto> teamStats() {
+        return teamStatsQueryRepository.findAll();
+    }
+}
@@ -4,16 +4,30 @@ import jakarta.persistence.*;
 import lombok.*;
 
 import static jakarta.persistence.FetchType.*;
+import static jakarta.persistence.GenerationType.SEQUENCE;
 
+// 검색 조건별 인덱스 (MemberSearchCondition)
+// - username : 이름 동등 조건
+// - team_id, age : team 조인(FK) + 팀 안에서 나이 범위 (team.name 조건이면 team -> member 순서로 이 인덱스를 탄다)
+// - age : team 조건 없이 나이 범위만 있을 때
+// - team_name, age : 조인 없는 검색(searchJoinFree)의 팀 이름 조건
 @Entity
-@Table(name = "member")
+@Table(name = "member", indexes = {
+        @Index(name = "idx_member_username", columnList = "username"),
+        @Index(name = "idx_member_team_age", columnList = "team_id, age"),
+        @Index(name = "idx_member_age", columnList = "age"),
+        @Index(name = "idx_member_team_name_age", columnList = "team_name, age")
+})
 @Getter
 @Setter
 @NoArgsConstructor(access = AccessLevel.PROTECTED)
 @ToString(of = {"id", "username", "age"})
 public class Member {
 
-    @Id @GeneratedValue
+    // pooled 시퀀스 - 시퀀스 한번 조회로 id 를 allocationSize 개씩 미리 확보한다. (insert 마다 id 조회 X)
+    @Id
+    @GeneratedValue(strategy = SEQUENCE, generator = "member_seq")
+    @SequenceGenerator(name = "member_seq", sequenceName = "member_seq", allocationSize = 1000)
     @Column(name = "member_id")
     private Long id;
 
@@ -24,8 +38,16 @@ public class Member {
     // FK
     @ManyToOne(fetch = LAZY)
     @JoinColumn(name = "team_id")
+    @Setter(AccessLevel.NONE)
     private Team team;
 
+    // 반정규화 - team.name 복사본. 조인 없이 member 만으로 MemberTeamDto 를 만들기 위해 둔다.
+    // changeTeam 에서 같이 세팅하고, 팀 이름 변경은 TeamRenameService 가 member 쪽으로 나눠서 반영한다.
+    // team 과 따로 바뀌지 않게 setter 를 막는다. (changeTeam 으로만 세팅)
+    @Column(name = "team_name")
+    @Setter(AccessLevel.NONE)
+    private String teamName;
+
     public Member(String username) {
         this(username,0);
     }
@@ -44,6 +66,17 @@ public class Member {
 
     public void changeTeam(Team team) {
         this.team = team;
+        this.teamName = team.getName();
         team.getMembers().add(this);
     }
+
+    /**
+     * 대량 적재용 - team.members 컬렉션을 로딩하지 않고, team 프록시도 초기화하지 않도록 이름을 따로 받는다.
+     *
+     * @param teamName team 의 현재 이름 (호출하는 쪽이 맞춰서 넘긴다)
+     */
+    public void changeTeam(Team team, String teamName) {
+        this.team = team;
+        this.teamName = teamName;
+    }
 }
@@ -3,12 +3,18 @@ package com.example.querydsl.domain;
 
 import jakarta.persistence.*;
 import lombok.*;
+import org.hibernate.annotations.Cache;
+import org.hibernate.annotations.CacheConcurrencyStrategy;
 
 import java.util.ArrayList;
 import java.util.List;
 
+// 거의 안 바뀌고 조회(조인, 지연로딩)가 많아서 2차 캐시에 올린다. (크기 / ttl 은 ehcache.xml)
+// READ_WRITE - Team 을 수정하면 캐시도 같이 갱신 / 무효화 된다.
 @Entity
-@Table(name = "team")
+@Cacheable
+@Cache(usage = CacheConcurrencyStrategy.READ_WRITE)
+@Table(name = "team", indexes = @Index(name = "idx_team_name", columnList = "name"))
 @Getter
 @Setter
 @NoArgsConstructor(access = AccessLevel.PROTECTED)
@@ -19,6 +25,8 @@ public class Team {
     @Column(name = "team_id")
     private Long id;
 
+    // member.team_name 에 복사돼 있어서 setter 를 막는다. 이름 변경은 TeamRenameService 로. (changeName)
+    @Setter(AccessLevel.NONE)
     private String name;
 
     // 주인이 아닌 거울이라서 Fk를 업데이트 하지 않는다.
@@ -28,4 +36,11 @@ public class Team {
     public Team(String name) {
         this.name = name;
     }
+
+    /**
+     * team 이름만 바꾼다. member.team_name 전파는 하지 않으니 TeamRenameService.rename 을 통해서 부른다.
+     */
+    public void changeName(String name) {
+        this.name = name;
+    }
 }
@@ -0,0 +1,53 @@
+package com.example.querydsl.domain;
+
+import jakarta.persistence.*;
+import lombok.*;
+
+/**
+ * 팀별 나이 집계 (member 수, 나이 합계, 최소 / 최대) - 미리 계산해 둔 집계 테이블
+ *
+ * member insert / delete / 나이 변경 / 팀 변경 시 TeamStatsListener 가 트랜잭션 커밋 직전에 증분으로 반영하고,
+ * 벌크 수정 / 삭제는 MemberBulkRepository 가 chunk 마다 반영한다.
+ * 어긋난 값은 TeamStatsReconciler 가 주기적으로 실제 값과 비교해서 맞춘다.
+ *
+ * team 과 연관관계(FK)는 걸지 않는다. (team 을 지울 때 집계 때문에 막히지 않게, 남은 row 는 정합성 작업이 지운다)
+ */
+@Entity
+@Table(name = "team_stats")
+@Getter
+@NoArgsConstructor(access = AccessLevel.PROTECTED)
+@ToString
+public class TeamStats {
+
+    @Id
+    @Column(name = "team_id")
+    private Long teamId;
+
+    @Column(name = "member_count", nullable = false)
+    private long memberCount;
+
+    @Column(name = "age_sum", nullable = false)
+    private long ageSum;
+
+    @Column(name = "min_age")
+    private Integer minAge;
+
+    @Column(name = "max_age")
+    private Integer maxAge;
+
+    public TeamStats(Long teamId, long memberCount, long ageSum, Integer minAge, Integer maxAge) {
+        this.teamId = teamId;
+        reset(memberCount, ageSum, minAge, maxAge);
+    }
+
+    public Double getAvgAge() {
+        return memberCount == 0 ? null : (double) ageSum / memberCount;
+    }
+
+    public void reset(long memberCount, long ageSum, Integer minAge, Integer maxAge) {
+        this.memberCount = memberCount;
+        this.ageSum = ageSum;
+        this.minAge = minAge;
+        this.maxAge = maxAge;
+    }
+}
@@ -0,0 +1,31 @@
+package com.example.querydsl.dto;
+
+import org.springframework.data.domain.PageImpl;
+import org.springframework.data.domain.Pageable;
+
+import java.util.List;
+
+/**
+ * 전체 건수가 추정치일 수 있는 페이지
+ *
+ * totalExact 가 false 면 totalElements(totalPages) 는 추정치이고 실제 값은 totalElements ± totalError 안에 있다.
+ */
+public class EstimatedPage<T> extends PageImpl<T> {
+
+    private final boolean totalExact;
+    private final long totalError;
+
+    public EstimatedPage(List<T> content, Pageable pageable, long total, boolean totalExact, long totalError) {
+        super(content, pageable, total);
+        this.totalExact = totalExact;
+        this.totalError = totalError;
+    }
+
+    public boolean isTotalExact() {
+        return totalExact;
+    }
+
+    public long getTotalError() {
+        return totalError;
+    }
+}
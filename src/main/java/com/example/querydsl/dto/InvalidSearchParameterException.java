@@ -0,0 +1,17 @@
+package com.example.querydsl.dto;
+
+/**
+ * 클라이언트가 보낸 검색 파라미터(cursor, fields, size ...)가 잘못된 경우 (컨트롤러에서 400 으로 응답)
+ *
+ * 일반 IllegalArgumentException 은 서버 쪽 버그일 수 있어서 400 으로 바꾸지 않는다.
+ */
+public class InvalidSearchParameterException extends IllegalArgumentException {
+
+    public InvalidSearchParameterException(String message) {
+        super(message);
+    }
+
+    public InvalidSearchParameterException(String message, Throwable cause) {
+        super(message, cause);
+    }
+}
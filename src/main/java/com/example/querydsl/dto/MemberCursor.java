@@ -0,0 +1,52 @@
+package com.example.querydsl.dto;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Base64;
+
+import static org.springframework.util.StringUtils.hasText;
+
+/**
+ * 커서 값 인코딩/디코딩
+ *
+ * 내부적으로는 마지막으로 내려준 member id 이지만 클라이언트에게는 불투명한 문자열로 노출한다.
+ * (나중에 정렬 키가 바뀌어도 api 스펙은 그대로 유지할 수 있다.)
+ */
+public final class MemberCursor {
+
+    private static final String PREFIX = "m:";
+
+    private MemberCursor() {
+    }
+
+    public static String encode(Long lastMemberId) {
+        if (lastMemberId == null) {
+            return null;
+        }
+        byte[] raw = (PREFIX + lastMemberId).getBytes(StandardCharsets.UTF_8);
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(raw);
+    }
+
+    /**
+     * @return 첫 페이지 요청이면 null
+     * @throws InvalidSearchParameterException 잘못된 커서 값
+     */
+    public static Long decode(String cursor) {
+        if (!hasText(cursor)) {
+            return null;
+        }
+        String raw;
+        try {
+            raw = new String(Base64.getUrlDecoder().decode(cursor), StandardCharsets.UTF_8);
+        } catch (IllegalArgumentException e) {
+            throw new InvalidSearchParameterException("invalid cursor: " + cursor, e);
+        }
+        if (!raw.startsWith(PREFIX)) {
+            throw new InvalidSearchParameterException("invalid cursor: " + cursor);
+        }
+        try {
+            return Long.valueOf(raw.substring(PREFIX.length()));
+        } catch (NumberFormatException e) {
+            throw new InvalidSearchParameterException("invalid cursor: " + cursor, e);
+        }
+    }
+}
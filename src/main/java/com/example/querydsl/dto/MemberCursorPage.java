@@ -0,0 +1,24 @@
+package com.example.querydsl.dto;
+
+import lombok.Data;
+
+import java.util.List;
+
+/**
+ * 커서(keyset) 기반 페이징 결과
+ *
+ * nextCursor 는 클라이언트가 해석하지 않는 불투명한 값이다. 다음 요청에 그대로 넘겨주면 된다.
+ * 마지막 페이지라면 nextCursor 는 null 이다.
+ */
+@Data
+public class MemberCursorPage {
+    private List<MemberTeamDto> content;
+    private String nextCursor;
+    private boolean hasNext;
+
+    public MemberCursorPage(List<MemberTeamDto> content, String nextCursor, boolean hasNext) {
+        this.content = content;
+        this.nextCursor = nextCursor;
+        this.hasNext = hasNext;
+    }
+}
@@ -0,0 +1,74 @@
+package com.example.querydsl.dto;
+
+import com.querydsl.core.types.Expression;
+
+import java.util.ArrayList;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+
+import static com.example.querydsl.domain.QMember.member;
+import static com.example.querydsl.domain.QTeam.team;
+import static org.springframework.util.StringUtils.hasText;
+
+/**
+ * 검색 api 의 fields= 파라미터로 고를 수 있는 컬럼 (이름은 MemberTeamDto 프로퍼티와 같다)
+ *
+ * teamId 는 member 의 fk 컬럼(member.team_id)이라 team 조인이 필요 없다. teamName 만 조인이 필요하다.
+ */
+public enum MemberField {
+    MEMBER_ID("memberId", member.id),
+    USERNAME("username", member.username),
+    AGE("age", member.age),
+    TEAM_ID("teamId", member.team.id),
+    TEAM_NAME("teamName", team.name);
+
+    private final String property;
+    private final Expression<?> expression;
+
+    MemberField(String property, Expression<?> expression) {
+        this.property = property;
+        this.expression = expression;
+    }
+
+    public String getProperty() {
+        return property;
+    }
+
+    public Expression<?> getExpression() {
+        return expression;
+    }
+
+    public boolean requiresTeamJoin() {
+        return this == TEAM_NAME;
+    }
+
+    /**
+     * "memberId,username" -> [MEMBER_ID, USERNAME] (요청한 순서 유지, 중복 제거)
+     *
+     * @throws InvalidSearchParameterException 비어있거나 모르는 필드
+     */
+    public static List<MemberField> parse(String fields) {
+        Set<MemberField> result = new LinkedHashSet<>();
+        if (hasText(fields)) {
+            for (String name : fields.split(",")) {
+                if (hasText(name)) {
+                    result.add(of(name.trim()));
+                }
+            }
+        }
+        if (result.isEmpty()) {
+            throw new InvalidSearchParameterException("fields must not be empty");
+        }
+        return new ArrayList<>(result);
+    }
+
+    private static MemberField of(String property) {
+        for (MemberField field : values()) {
+            if (field.property.equals(property)) {
+                return field;
+            }
+        }
+        throw new InvalidSearchParameterException("unknown field: " + property);
+    }
+}
@@ -2,11 +2,47 @@ package com.example.querydsl.dto;
 
 import lombok.Data;
 
+import static org.springframework.util.StringUtils.hasText;
+
 @Data
 public class MemberSearchCondition {
+
+    // 조건 조합(shape) 비트
+    public static final int USERNAME = 1;
+    public static final int TEAM_NAME = 1 << 1;
+    public static final int AGE_GOE = 1 << 2;
+    public static final int AGE_LOE = 1 << 3;
+    public static final int SHAPE_COUNT = 1 << 4;
+
     // 회원명, 팀명, 나이
     private String username;
     private String teamName;
     private Integer ageGoe; // 값이 null 일 수 도 있어서 int 말고 Integer 로 처리
     private Integer ageLoe;
+
+    /**
+     * 어떤 조건이 들어왔는지(null / non-null)를 비트로 표현한다. 0 ~ 15, 16가지
+     * 실제 where 절 조건(usernameEq, teamNameEq ...)과 같은 기준으로 판단한다.
+     */
+    public int shape() {
+        int shape = 0;
+        if (hasText(username)) shape |= USERNAME;
+        if (hasText(teamName)) shape |= TEAM_NAME;
+        if (ageGoe != null) shape |= AGE_GOE;
+        if (ageLoe != null) shape |= AGE_LOE;
+        return shape;
+    }
+
+    /**
+     * 공백 문자열 조건을 null 로 바꾼 사본 (같은 조건이면 equals / hashCode 가 같다 -> 캐시, 요청 합치기 키)
+     * 키로 쓰는 동안 바꾸면 안 된다.
+     */
+    public MemberSearchCondition normalized() {
+        MemberSearchCondition normalized = new MemberSearchCondition();
+        normalized.setUsername(hasText(username) ? username : null);
+        normalized.setTeamName(hasText(teamName) ? teamName : null);
+        normalized.setAgeGoe(ageGoe);
+        normalized.setAgeLoe(ageLoe);
+        return normalized;
+    }
 }
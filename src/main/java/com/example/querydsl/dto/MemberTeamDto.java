@@ -2,8 +2,10 @@ package com.example.querydsl.dto;
 
 import com.querydsl.core.annotations.QueryProjection;
 import lombok.Data;
+import lombok.NoArgsConstructor;
 
 @Data
+@NoArgsConstructor // Projections.bean, Projections.fields 용
 public class MemberTeamDto {
     private Long memberId;
     private String username;
@@ -1,46 +1,32 @@
 package com.example.querydsl.init;
 
-import com.example.querydsl.domain.Member;
-import com.example.querydsl.domain.Team;
+import com.example.querydsl.service.MemberBulkLoader;
 import jakarta.annotation.PostConstruct;
-import jakarta.persistence.EntityManager;
-import jakarta.persistence.PersistenceContext;
-import lombok.RequiredArgsConstructor;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.annotation.Profile;
 import org.springframework.stereotype.Component;
-import org.springframework.transaction.annotation.Transactional;
 
 @Profile("local")
 @Component
-@RequiredArgsConstructor
 public class InitMember {
 
-    private final InitMemberService initMemberService;
+    private final MemberBulkLoader memberBulkLoader;
+    private final int teams;
+    private final long members;
+
+    public InitMember(MemberBulkLoader memberBulkLoader,
+                      @Value("${member.init.teams:2}") int teams,
+                      @Value("${member.init.members:100}") long members) {
+        this.memberBulkLoader = memberBulkLoader;
+        this.teams = teams;
+        this.members = members;
+    }
 
     // post랑 transaction 어노테이션은 스프링 부트 라이프 사이클 상 불가능 해서 둘이 분리를 해야한다.
+    // -> MemberBulkLoader 가 TransactionTemplate 으로 청크 단위 트랜잭션을 직접 연다.
 
     @PostConstruct
     public void init() {
-        initMemberService.init();
-    }
-
-    @Component
-    static class InitMemberService {
-        @PersistenceContext
-        private EntityManager em;
-
-        @Transactional
-        public void init() {
-            Team teamA = new Team("teamA");
-            Team teamB = new Team("teamB");
-            em.persist(teamA);
-            em.persist(teamB);
-
-
-            for (int i = 0; i < 100; i++) {
-                Team selectedTeam = i % 2 == 0 ? teamA : teamB;
-                em.persist(new Member("member" + i, i, selectedTeam));
-            }
-        }
+        memberBulkLoader.seed(teams, members);
     }
 }
@@ -0,0 +1,399 @@
+package com.example.querydsl.repository;
+
+import com.example.querydsl.domain.Member;
+import com.example.querydsl.domain.Team;
+import com.example.querydsl.dto.MemberSearchCondition;
+import com.example.querydsl.support.CollationKey;
+import com.example.querydsl.support.FenwickTree;
+import com.example.querydsl.support.QueryCountInspector;
+import com.querydsl.core.Tuple;
+import com.querydsl.jpa.impl.JPAQueryFactory;
+import jakarta.annotation.PostConstruct;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.EntityManagerFactory;
+import lombok.extern.slf4j.Slf4j;
+import org.hibernate.action.spi.AfterTransactionCompletionProcess;
+import org.hibernate.action.spi.BeforeTransactionCompletionProcess;
+import org.hibernate.engine.spi.SessionFactoryImplementor;
+import org.hibernate.engine.spi.SharedSessionContractImplementor;
+import org.hibernate.event.service.spi.EventListenerRegistry;
+import org.hibernate.event.spi.EventSource;
+import org.hibernate.event.spi.EventType;
+import org.hibernate.event.spi.PostDeleteEvent;
+import org.hibernate.event.spi.PostDeleteEventListener;
+import org.hibernate.event.spi.PostInsertEvent;
+import org.hibernate.event.spi.PostInsertEventListener;
+import org.hibernate.event.spi.PostUpdateEvent;
+import org.hibernate.event.spi.PostUpdateEventListener;
+import org.hibernate.persister.entity.EntityPersister;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.orm.jpa.EntityManagerHolder;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.OptionalLong;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Consumer;
+
+import static com.example.querydsl.domain.QMember.member;
+import static com.example.querydsl.domain.QTeam.team;
+import static org.springframework.util.StringUtils.hasText;
+
+/**
+ * 나이 범위 count 용 메모리 인덱스 - 팀별 Fenwick tree (나이 0 ~ 150)
+ *
+ * ageGoe / ageLoe / teamName 조합의 count 는 DB 를 거치지 않고 O(log 151) 로 답한다.
+ * 시작할 때 (team_id, age) 별 count 로 만들고, 이후로는 member / team 변경 이벤트를 커밋 후에 반영한다.
+ *
+ * 아래 경우에는 empty 를 돌려주고 호출한 쪽이 SQL count 를 쓴다.
+ * - username 조건이 있을 때 (인덱스에 없는 조건)
+ * - 아직 안 만들어졌거나, 만든 뒤로 member 벌크 update / delete 가 있었을 때 (이벤트가 안 나와서 알 수 없음)
+ * - 범위 밖 나이 / 이전 값 없는 update 를 만났을 때
+ * - 현재 트랜잭션이 member 를 바꿨는데 아직 커밋 전일 때 (인덱스는 커밋된 값 기준)
+ * - teamName 이 악센트 등으로 DB collation 과 같게 비교된다고 장담할 수 없을 때 (CollationKey)
+ * stale 해진 인덱스는 member.age-index.rebuild-cron 주기로 다시 만든다.
+ *
+ * 이 애플리케이션 하나가 hibernate 로만 member 를 쓴다고 가정한다. (single writer)
+ * native insert / JdbcTemplate / 다른 인스턴스의 변경은 이벤트도 안 나오고 벌크 연산 집계에도 안 잡힌다.
+ * 그래서 같은 주기에 인덱스 전체 수와 select count 를 비교해서 다르면 stale 로 보고 다시 만든다.
+ * (row 수가 그대로인 밖의 나이 / 팀 변경은 이걸로도 못 잡는다. 그런 writer 가 있으면 이 인덱스를 끄고 쓴다)
+ *
+ * 팀 이름은 DB 처럼 대소문자 / 악센트를 무시하고 찾는다. (CollationKey 로 키를 만든다)
+ *
+ * 다시 만드는 동안 커밋된 변경은 새 인덱스에 빠지거나 (옛 인덱스에 반영) 두번 들어갈 수 있다. (읽은 스냅샷에 이미 포함)
+ * 어느 쪽인지 알 수 없으니 그 사이 커밋이 있었으면 바로 다시 만들고, 몇번 해도 안 되면 stale 로 두고 SQL count 를 쓴다.
+ */
+@Slf4j
+@Component
+public class MemberAgeIndex implements PostInsertEventListener, PostUpdateEventListener, PostDeleteEventListener {
+
+    public static final int MAX_AGE = 150;
+
+    private static final int REBUILD_ATTEMPTS = 3;
+
+    private final EntityManagerFactory emf;
+    private final JPAQueryFactory queryFactory;
+    private final TransactionTemplate transactionTemplate;
+    private final boolean enabled;
+
+    private volatile Index index;
+    private volatile boolean stale = true;
+
+    // 진행 중인 세션(트랜잭션)별로 커밋되면 반영할 변경
+    private final Map<SharedSessionContractImplementor, List<Consumer<Index>>> pending = new ConcurrentHashMap<>();
+    // 커밋을 시작했지만 아직 인덱스에 반영하지 않은 세션 / 반영을 마친 커밋 수 (rebuild 와 겹쳤는지 확인용)
+    private final Set<SharedSessionContractImplementor> committing = ConcurrentHashMap.newKeySet();
+    private final AtomicLong committed = new AtomicLong();
+
+    public MemberAgeIndex(EntityManagerFactory emf,
+                          EntityManager em,
+                          TransactionTemplate transactionTemplate,
+                          @Value("${member.age-index.enabled:true}") boolean enabled) {
+        this.emf = emf;
+        this.queryFactory = new JPAQueryFactory(em);
+        this.transactionTemplate = transactionTemplate;
+        this.enabled = enabled;
+    }
+
+    @PostConstruct
+    public void register() {
+        EventListenerRegistry registry = emf.unwrap(SessionFactoryImplementor.class)
+                .getServiceRegistry()
+                .getService(EventListenerRegistry.class);
+        registry.appendListeners(EventType.POST_INSERT, this);
+        registry.appendListeners(EventType.POST_UPDATE, this);
+        registry.appendListeners(EventType.POST_DELETE, this);
+    }
+
+    /**
+     * @return 인덱스로 답할 수 없으면 empty
+     */
+    public OptionalLong count(MemberSearchCondition condition) {
+        Index current = index;
+        if (current == null || isStale(current) || hasText(condition.getUsername()) || hasPendingChanges()) {
+            return OptionalLong.empty();
+        }
+
+        int from = condition.getAgeGoe() == null ? 0 : Math.max(condition.getAgeGoe(), 0);
+        int to = condition.getAgeLoe() == null ? MAX_AGE : Math.min(condition.getAgeLoe(), MAX_AGE);
+        if (!hasText(condition.getTeamName())) {
+            return OptionalLong.of(current.all.rangeSum(from, to));
+        }
+
+        String teamKey = CollationKey.of(condition.getTeamName());
+        if (!CollationKey.exact(teamKey)) {
+            return OptionalLong.empty();
+        }
+        long count = 0;
+        for (Long teamId : current.teamIdsByName.getOrDefault(teamKey, Set.of())) {
+            FenwickTree tree = current.byTeam.get(teamId);
+            if (tree != null) {
+                count += tree.rangeSum(from, to);
+            }
+        }
+        return OptionalLong.of(count);
+    }
+
+    private boolean isStale(Index current) {
+        return stale || current.bulkMutations != QueryCountInspector.memberBulkMutations();
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void build() {
+        if (enabled) {
+            rebuild();
+        }
+    }
+
+    @Scheduled(cron = "${member.age-index.rebuild-cron:0 */10 * * * *}")
+    public void rebuildIfStale() {
+        Index current = index;
+        if (enabled && (current == null || isStale(current) || !matchesMemberCount(current))) {
+            rebuild();
+        }
+    }
+
+    /**
+     * hibernate 밖에서 바뀐 row 수를 잡는다. (member(age) 인덱스만 세는 count 한번)
+     * 세는 동안 커밋이 있었으면 비교할 수 없으니 맞는 것으로 보고 다음 주기에 다시 본다.
+     */
+    private boolean matchesMemberCount(Index current) {
+        long committedBefore = committed.get();
+        Long count = transactionTemplate.execute(status -> queryFactory.select(member.count()).from(member).fetchOne());
+        long indexed = current.all.rangeSum(0, MAX_AGE);
+        if (committed.get() != committedBefore || !committing.isEmpty() || Objects.equals(count, indexed)) {
+            return true;
+        }
+        log.warn("member age index has {} members but member table has {}, marked stale", indexed, count);
+        stale = true;
+        return false;
+    }
+
+    /**
+     * (team_id, age) 별 count 로 처음부터 다시 만든다. (member(team_id, age) 인덱스만 읽는다)
+     */
+    public synchronized void rebuild() {
+        for (int attempt = 1; attempt <= REBUILD_ATTEMPTS; attempt++) {
+            if (rebuildOnce()) {
+                return;
+            }
+        }
+    }
+
+    /**
+     * @return 다시 해도 소용없으면 (범위 밖 나이) 또는 만드는 중에 커밋이 없었으면 true
+     */
+    private boolean rebuildOnce() {
+        long start = System.nanoTime();
+        // 읽기 전에 기록해 둬야 읽는 도중의 벌크 연산 / 커밋도 stale 로 잡힌다.
+        long bulkMutations = QueryCountInspector.memberBulkMutations();
+        long committedBefore = committed.get();
+        boolean committingBefore = !committing.isEmpty();
+
+        Index rebuilt = transactionTemplate.execute(status -> {
+            Index building = new Index(bulkMutations);
+            for (Tuple row : queryFactory.select(team.id, team.name).from(team).fetch()) {
+                building.addTeam(row.get(team.id), row.get(team.name));
+            }
+            List<Tuple> rows = queryFactory
+                    .select(member.team.id, member.age, member.count())
+                    .from(member)
+                    .groupBy(member.team.id, member.age)
+                    .fetch();
+            for (Tuple row : rows) {
+                if (!building.addMembers(row.get(0, Long.class), row.get(1, Integer.class), row.get(2, Long.class))) {
+                    return null;
+                }
+            }
+            return building;
+        });
+
+        index = rebuilt;
+        // 바꿔 끼운 다음에 확인해야 바꿔 끼우는 사이 옛 인덱스에 반영된 커밋도 잡힌다.
+        boolean raced = committingBefore || !committing.isEmpty() || committed.get() != committedBefore;
+        stale = rebuilt == null || raced;
+        log.info("member age index rebuilt in {} ms (usable: {}, raced with commit: {})",
+                (System.nanoTime() - start) / 1_000_000, !stale, raced);
+        return rebuilt == null || !raced;
+    }
+
+    @Override
+    public void onPostInsert(PostInsertEvent event) {
+        Object[] state = event.getState();
+        if (event.getEntity() instanceof Member) {
+            Long teamId = teamId(event.getPersister(), state);
+            int age = age(event.getPersister(), state);
+            onCommit(event.getSession(), index -> applyMember(index, teamId, age, 1));
+        } else if (event.getEntity() instanceof Team) {
+            Long teamId = (Long) event.getId();
+            String name = teamName(event.getPersister(), state);
+            onCommit(event.getSession(), index -> index.addTeam(teamId, name));
+        }
+    }
+
+    @Override
+    public void onPostDelete(PostDeleteEvent event) {
+        Object[] state = event.getDeletedState();
+        if (event.getEntity() instanceof Member) {
+            Long teamId = teamId(event.getPersister(), state);
+            int age = age(event.getPersister(), state);
+            onCommit(event.getSession(), index -> applyMember(index, teamId, age, -1));
+        } else if (event.getEntity() instanceof Team) {
+            Long teamId = (Long) event.getId();
+            String name = teamName(event.getPersister(), state);
+            onCommit(event.getSession(), index -> index.removeTeam(teamId, name));
+        }
+    }
+
+    @Override
+    public void onPostUpdate(PostUpdateEvent event) {
+        if (!(event.getEntity() instanceof Member) && !(event.getEntity() instanceof Team)) {
+            return;
+        }
+        Object[] oldState = event.getOldState();
+        if (oldState == null) {
+            // 커밋으로 반영해야 진행 중인 rebuild 도 이 변경을 알아챈다.
+            log.debug("{} updated without old state, member age index marked stale", event.getEntity());
+            stale = true;
+            onCommit(event.getSession(), index -> stale = true);
+            return;
+        }
+
+        EntityPersister persister = event.getPersister();
+        if (event.getEntity() instanceof Member) {
+            Long oldTeamId = teamId(persister, oldState);
+            Long newTeamId = teamId(persister, event.getState());
+            int oldAge = age(persister, oldState);
+            int newAge = age(persister, event.getState());
+            if (!Objects.equals(oldTeamId, newTeamId) || oldAge != newAge) {
+                onCommit(event.getSession(), index -> {
+                    applyMember(index, oldTeamId, oldAge, -1);
+                    applyMember(index, newTeamId, newAge, 1);
+                });
+            }
+        } else {
+            Long teamId = (Long) event.getId();
+            String oldName = teamName(persister, oldState);
+            String newName = teamName(persister, event.getState());
+            if (!Objects.equals(oldName, newName)) {
+                onCommit(event.getSession(), index -> {
+                    index.removeTeam(teamId, oldName);
+                    index.addTeam(teamId, newName);
+                });
+            }
+        }
+    }
+
+    @Override
+    public boolean requiresPostCommitHandling(EntityPersister persister) {
+        return false;
+    }
+
+    private void applyMember(Index index, Long teamId, int age, int delta) {
+        if (!index.addMembers(teamId, age, delta)) {
+            stale = true;
+        }
+    }
+
+    private void onCommit(EventSource session, Consumer<Index> change) {
+        pending.computeIfAbsent(session, s -> {
+            session.getActionQueue().registerProcess((BeforeTransactionCompletionProcess) committing::add);
+            session.getActionQueue().registerProcess((AfterTransactionCompletionProcess) (success, completed) -> {
+                List<Consumer<Index>> changes = pending.remove(completed);
+                try {
+                    Index current = index;
+                    if (success && changes != null && current != null) {
+                        changes.forEach(c -> c.accept(current));
+                    }
+                } finally {
+                    // 반영한 다음 센다. (rebuild 가 committing 에서 빠진 것을 보면 committed 도 이미 늘어나 있다)
+                    if (success) {
+                        committed.incrementAndGet();
+                    }
+                    committing.remove(completed);
+                }
+            });
+            return new ArrayList<>();
+        }).add(change);
+    }
+
+    private boolean hasPendingChanges() {
+        if (pending.isEmpty()) {
+            return false;
+        }
+        EntityManagerHolder holder = (EntityManagerHolder) TransactionSynchronizationManager.getResource(emf);
+        if (holder == null) {
+            return false;
+        }
+        List<Consumer<Index>> changes = pending.get(holder.getEntityManager().unwrap(SharedSessionContractImplementor.class));
+        return changes != null && !changes.isEmpty();
+    }
+
+    private static Long teamId(EntityPersister persister, Object[] state) {
+        Team team = (Team) state[persister.getPropertyIndex("team")];
+        return team == null ? null : team.getId();
+    }
+
+    private static int age(EntityPersister persister, Object[] state) {
+        return (Integer) state[persister.getPropertyIndex("age")];
+    }
+
+    private static String teamName(EntityPersister persister, Object[] state) {
+        return (String) state[persister.getPropertyIndex("name")];
+    }
+
+    /**
+     * 전체 / 팀별 나이 분포 + 팀 이름 -> 팀 id
+     */
+    private static class Index {
+        final long bulkMutations;
+        final FenwickTree all = new FenwickTree(MAX_AGE + 1);
+        final Map<Long, FenwickTree> byTeam = new ConcurrentHashMap<>();
+        // 키는 CollationKey.of(팀 이름)
+        final Map<String, Set<Long>> teamIdsByName = new ConcurrentHashMap<>();
+
+        Index(long bulkMutations) {
+            this.bulkMutations = bulkMutations;
+        }
+
+        /**
+         * @return 나이가 범위 밖이면 false (반영 안 함)
+         */
+        boolean addMembers(Long teamId, int age, long delta) {
+            if (age < 0 || age > MAX_AGE) {
+                log.warn("member age {} out of index range 0 ~ {}", age, MAX_AGE);
+                return false;
+            }
+            all.add(age, delta);
+            if (teamId != null) {
+                byTeam.computeIfAbsent(teamId, id -> new FenwickTree(MAX_AGE + 1)).add(age, delta);
+            }
+            return true;
+        }
+
+        void addTeam(Long teamId, String name) {
+            if (name != null) {
+                teamIdsByName.computeIfAbsent(CollationKey.of(name), n -> ConcurrentHashMap.newKeySet()).add(teamId);
+            }
+        }
+
+        void removeTeam(Long teamId, String name) {
+            if (name != null) {
+                teamIdsByName.computeIfPresent(CollationKey.of(name), (n, ids) -> {
+                    ids.remove(teamId);
+                    return ids.isEmpty() ? null : ids;
+                });
+            }
+        }
+    }
+}
@@ -0,0 +1,178 @@
+package com.example.querydsl.repository;
+
+import com.querydsl.core.Tuple;
+import com.querydsl.core.types.Predicate;
+import com.querydsl.jpa.impl.JPAQueryFactory;
+import com.querydsl.jpa.impl.JPAUpdateClause;
+import jakarta.persistence.EntityManager;
+import lombok.extern.slf4j.Slf4j;
+import org.hibernate.engine.spi.SharedSessionContractImplementor;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.List;
+import java.util.function.Consumer;
+import java.util.function.LongSupplier;
+
+import static com.example.querydsl.domain.QMember.member;
+
+/**
+ * member 벌크 수정 / 삭제를 id 구간(chunk) 단위로 나눠서 실행한다.
+ *
+ * update(...).execute() 한 방은 조건에 맞는 row 를 한 문장으로 전부 건드려서 락을 오래 잡고 언두 로그가 커진다.
+ * 여기서는 [min id, max id] 를 chunkSize 씩 잘라서 chunk 마다 트랜잭션을 커밋하고, chunk 사이에 throttle 만큼 쉰다.
+ *
+ * - chunk 마다 flush -> 실행 -> clear 하기 때문에 호출한 쪽이 em.flush() / em.clear() 를 신경쓸 필요가 없다.
+ * - Member 는 2차 캐시 대상이 아니라 비울 것이 없다. member-search 등 쿼리 캐시는 hibernate 가 벌크 연산 시 테이블 단위로 무효화 한다.
+ * - 벌크 연산은 엔티티 이벤트가 안 나와서 팀별 집계(TeamStats)는 chunk 구간의 전 / 후 집계 차이로 같은 트랜잭션에서 반영한다.
+ * - chunk 단위 커밋이라 중간에 실패하면 앞 chunk 까지는 반영된 상태로 남는다. 조건은 다시 돌려도 되는 형태로 만들자.
+ * - 바깥 트랜잭션이 있으면 chunk 트랜잭션이 나눠지지 않으니 트랜잭션 밖에서 호출해야 한다.
+ * - where 는 member 필드로만 만든다. (벌크 연산 JPQL 은 join 불가, team 조건은 서브쿼리로)
+ */
+@Slf4j
+@Component
+public class MemberBulkRepository {
+
+    private final EntityManager em;
+    private final JPAQueryFactory queryFactory;
+    private final TransactionTemplate transactionTemplate;
+    private final int chunkSize;
+    private final long throttleMillis;
+
+    public MemberBulkRepository(EntityManager em,
+                                TransactionTemplate transactionTemplate,
+                                @Value("${member.bulk-update.chunk-size:10000}") int chunkSize,
+                                @Value("${member.bulk-update.throttle-millis:0}") long throttleMillis) {
+        this.em = em;
+        this.queryFactory = new JPAQueryFactory(em);
+        this.transactionTemplate = transactionTemplate;
+        this.chunkSize = chunkSize;
+        this.throttleMillis = throttleMillis;
+    }
+
+    /**
+     * chunk 별 진행 상황
+     *
+     * @param lastId   이번 chunk 까지 처리한 id 상한
+     * @param maxId    처리할 id 상한
+     * @param affected 지금까지 수정 / 삭제된 row 수
+     */
+    public record Progress(int chunk, long lastId, long maxId, long affected) {
+    }
+
+    public long update(Predicate where, Consumer<JPAUpdateClause> set) {
+        return update(where, set, progress -> {});
+    }
+
+    /**
+     * ex) update(member.age.lt(20), clause -> clause.set(member.username, "비회원"), progress -> ...)
+     *
+     * @return 수정된 row 수
+     */
+    public long update(Predicate where, Consumer<JPAUpdateClause> set, Consumer<Progress> progress) {
+        return inChunks("update", where, progress, (from, to) -> {
+            JPAUpdateClause clause = queryFactory.update(member);
+            set.accept(clause);
+            return clause.where(where, member.id.between(from, to)).execute();
+        });
+    }
+
+    public long delete(Predicate where) {
+        return delete(where, progress -> {});
+    }
+
+    /**
+     * @return 삭제된 row 수
+     */
+    public long delete(Predicate where, Consumer<Progress> progress) {
+        return inChunks("delete", where, progress, (from, to) -> queryFactory
+                .delete(member)
+                .where(where, member.id.between(from, to))
+                .execute());
+    }
+
+    private long inChunks(String operation, Predicate where, Consumer<Progress> progress, ChunkStatement statement) {
+        if (TransactionSynchronizationManager.isActualTransactionActive()) {
+            throw new IllegalStateException("chunked bulk " + operation + " must be called outside of a transaction");
+        }
+
+        Tuple range = queryFactory
+                .select(member.id.min(), member.id.max())
+                .from(member)
+                .where(where)
+                .fetchOne();
+        Long minId = range == null ? null : range.get(member.id.min());
+        Long maxId = range == null ? null : range.get(member.id.max());
+        if (minId == null || maxId == null) {
+            return 0;
+        }
+
+        long affected = 0;
+        int chunk = 0;
+        for (long start = minId; start <= maxId; start += chunkSize) {
+            long from = start;
+            long to = Math.min(start + chunkSize - 1, maxId);
+            affected += inTransaction(from, to, () -> statement.execute(from, to));
+            progress.accept(new Progress(++chunk, to, maxId, affected));
+            log.info("bulk {} members chunk {} (id <= {}/{}), {} rows", operation, chunk, to, maxId, affected);
+
+            if (to < maxId && !throttle()) {
+                log.warn("bulk {} interrupted after chunk {}", operation, chunk);
+                break;
+            }
+        }
+
+        return affected;
+    }
+
+    private long inTransaction(long fromId, long toId, LongSupplier statement) {
+        Long affected = transactionTemplate.execute(status -> {
+            em.flush();
+            TeamStatsDelta delta = new TeamStatsDelta();
+            teamStatsOf(fromId, toId, -1, delta);
+            long count = statement.getAsLong();
+            teamStatsOf(fromId, toId, 1, delta);
+            delta.apply(em.unwrap(SharedSessionContractImplementor.class));
+            em.clear(); // 영속성 컨텍스트에 남은 옛날 값을 버린다.
+            return count;
+        });
+        return affected == null ? 0 : affected;
+    }
+
+    /**
+     * id 구간의 팀별 (수, 나이 합계) 를 sign 을 곱해서 delta 에 더한다. (pk 구간 스캔이라 chunk 크기만큼만 읽는다)
+     */
+    private void teamStatsOf(long fromId, long toId, int sign, TeamStatsDelta delta) {
+        List<Tuple> rows = queryFactory
+                .select(member.team.id, member.count(), member.age.sum())
+                .from(member)
+                .where(member.id.between(fromId, toId), member.team.isNotNull())
+                .groupBy(member.team.id)
+                .fetch();
+        for (Tuple row : rows) {
+            delta.change(row.get(0, Long.class),
+                    sign * row.get(1, Long.class),
+                    sign * row.get(2, Number.class).longValue());
+        }
+    }
+
+    private boolean throttle() {
+        if (throttleMillis <= 0) {
+            return true;
+        }
+        try {
+            Thread.sleep(throttleMillis);
+            return true;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return false;
+        }
+    }
+
+    @FunctionalInterface
+    private interface ChunkStatement {
+        long execute(long fromId, long toId);
+    }
+}
@@ -0,0 +1,228 @@
+package com.example.querydsl.repository;
+
+import com.example.querydsl.domain.Member;
+import com.example.querydsl.domain.Team;
+import com.example.querydsl.dto.MemberSearchCondition;
+import com.example.querydsl.support.QueryCountInspector;
+import jakarta.annotation.PostConstruct;
+import jakarta.persistence.EntityManagerFactory;
+import lombok.extern.slf4j.Slf4j;
+import org.hibernate.action.spi.AfterTransactionCompletionProcess;
+import org.hibernate.engine.spi.SessionFactoryImplementor;
+import org.hibernate.engine.spi.SharedSessionContractImplementor;
+import org.hibernate.event.service.spi.EventListenerRegistry;
+import org.hibernate.event.spi.EventSource;
+import org.hibernate.event.spi.EventType;
+import org.hibernate.event.spi.PostDeleteEvent;
+import org.hibernate.event.spi.PostDeleteEventListener;
+import org.hibernate.event.spi.PostInsertEvent;
+import org.hibernate.event.spi.PostInsertEventListener;
+import org.hibernate.event.spi.PostUpdateEvent;
+import org.hibernate.event.spi.PostUpdateEventListener;
+import org.hibernate.persister.entity.EntityPersister;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.task.TaskRejectedException;
+import org.springframework.stereotype.Component;
+
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.LongSupplier;
+
+/**
+ * 검색 조건별 전체 건수 추정 (큰 결과셋의 정확한 count 를 매번 하지 않기 위해)
+ *
+ * 조건별로 마지막 정확한 count 를 캐시해 두고, 그 이후 member 변경(insert / update / delete) 횟수를 센다.
+ * 변경 한 건은 어떤 조건의 건수든 최대 1 만 바꾸기 때문에 "캐시된 count ± 변경 횟수" 가 오차 한계다.
+ * - 캐시된 count 가 exact-threshold 보다 작으면 추정하지 않고 항상 정확히 센다.
+ * - 오차 한계가 count 의 max-error-ratio 를 넘으면 추정을 버리고 정확히 센다.
+ * - 변경이 있었거나 refresh-after-millis 가 지났으면 정확한 count 를 별도 커넥션으로 다시 세서 바꿔 둔다. (응답은 기다리지 않음)
+ *
+ * 변경 횟수는 커밋 후에 센다. flush 는 됐지만 아직 커밋 전인 변경(in-flight)도 언제 커밋될지 모르니 오차 한계에 더한다.
+ * (롤백되면 in-flight 에서만 빠진다)
+ * 벌크 update / delete 가 있었으면 몇 건이 바뀌었는지 모르니 캐시를 전부 버린다.
+ * 다시 세는 count 스레드 풀이 꽉 찼으면 다시 세기를 건너뛴다. (요청 스레드에서 세지 않는다)
+ * hibernate 를 거치지 않은 jdbc 쓰기는 세지 못한다.
+ */
+@Slf4j
+@Component
+public class MemberCountEstimator implements PostInsertEventListener, PostUpdateEventListener, PostDeleteEventListener {
+
+    public record CountEstimate(long count, long maxError, boolean exact) {
+    }
+
+    /**
+     * @param changes      count 를 시작하기 직전의 변경 횟수
+     * @param bulkMutations count 를 시작하기 직전의 벌크 연산 횟수
+     */
+    private record Entry(long count, long changes, long bulkMutations, long countedAtNanos) {
+    }
+
+    private final EntityManagerFactory emf;
+    private final ParallelCountQuery countQuery;
+    private final long exactThreshold;
+    private final double maxErrorRatio;
+    private final long refreshAfterNanos;
+    private final int maxEntries;
+
+    // 커밋된 변경 수 / flush 됐지만 아직 커밋 전인 변경 수
+    private final AtomicLong changes = new AtomicLong();
+    private final AtomicLong inFlight = new AtomicLong();
+    // 진행 중인 세션(트랜잭션)별 flush 된 변경
+    private final Map<SharedSessionContractImplementor, Pending> pending = new ConcurrentHashMap<>();
+    // 키는 condition.normalized() 사본
+    private final Map<MemberSearchCondition, Entry> entries = new ConcurrentHashMap<>();
+    private final Set<MemberSearchCondition> refreshing = ConcurrentHashMap.newKeySet();
+
+    public MemberCountEstimator(EntityManagerFactory emf,
+                                ParallelCountQuery countQuery,
+                                @Value("${member.count-estimate.exact-threshold:100000}") long exactThreshold,
+                                @Value("${member.count-estimate.max-error-ratio:0.01}") double maxErrorRatio,
+                                @Value("${member.count-estimate.refresh-after-millis:30000}") long refreshAfterMillis,
+                                @Value("${member.count-estimate.max-entries:10000}") int maxEntries) {
+        this.emf = emf;
+        this.countQuery = countQuery;
+        this.exactThreshold = exactThreshold;
+        this.maxErrorRatio = maxErrorRatio;
+        this.refreshAfterNanos = refreshAfterMillis * 1_000_000;
+        this.maxEntries = maxEntries;
+    }
+
+    @PostConstruct
+    public void register() {
+        EventListenerRegistry registry = emf.unwrap(SessionFactoryImplementor.class)
+                .getServiceRegistry()
+                .getService(EventListenerRegistry.class);
+        registry.appendListeners(EventType.POST_INSERT, this);
+        registry.appendListeners(EventType.POST_UPDATE, this);
+        registry.appendListeners(EventType.POST_DELETE, this);
+    }
+
+    /**
+     * @param exactCount 추정할 수 없을 때 지금 스레드(트랜잭션)에서 실행할 정확한 count
+     */
+    public CountEstimate estimate(MemberSearchCondition condition, LongSupplier exactCount) {
+        MemberSearchCondition key = condition.normalized();
+        long bulkMutations = QueryCountInspector.memberBulkMutations();
+        Entry entry = entries.get(key);
+
+        if (entry != null && entry.bulkMutations == bulkMutations && entry.count >= exactThreshold) {
+            // in-flight 를 먼저 읽어야 그 사이 커밋된 변경이 양쪽 다 빠지지 않는다. (두번 세지는 건 괜찮다)
+            long uncommitted = inFlight.get();
+            long error = changes.get() - entry.changes + uncommitted;
+            if (error <= entry.count * maxErrorRatio) {
+                if (error > 0 || System.nanoTime() - entry.countedAtNanos > refreshAfterNanos) {
+                    refresh(key);
+                }
+                return new CountEstimate(entry.count, error, false);
+            }
+        }
+
+        long changesBefore = changes.get();
+        long count = exactCount.getAsLong();
+        put(key, new Entry(count, changesBefore, bulkMutations, System.nanoTime()));
+        return new CountEstimate(count, 0, true);
+    }
+
+    private void refresh(MemberSearchCondition key) {
+        if (!refreshing.add(key)) {
+            return;
+        }
+        long changesBefore = changes.get();
+        long bulkMutations = QueryCountInspector.memberBulkMutations();
+        CompletableFuture<Long> count;
+        try {
+            count = countQuery.submit(key);
+        } catch (TaskRejectedException e) {
+            refreshing.remove(key);
+            log.debug("member count refresh skipped, count executor is full: {}", key);
+            return;
+        }
+        count.whenComplete((counted, e) -> {
+            refreshing.remove(key);
+            if (e != null) {
+                log.warn("member count refresh failed: {}", key, e);
+                return;
+            }
+            put(key, new Entry(counted, changesBefore, bulkMutations, System.nanoTime()));
+        });
+    }
+
+    private void put(MemberSearchCondition key, Entry entry) {
+        // 조건 조합이 끝없이 늘어나면 (username 조건 등) 한번 비우고 다시 채운다.
+        if (entries.size() >= maxEntries && !entries.containsKey(key)) {
+            entries.clear();
+        }
+        entries.put(key, entry);
+    }
+
+    @Override
+    public void onPostInsert(PostInsertEvent event) {
+        if (event.getEntity() instanceof Member) {
+            onMemberChange(event.getSession());
+        }
+    }
+
+    @Override
+    public void onPostUpdate(PostUpdateEvent event) {
+        if (event.getEntity() instanceof Member) {
+            onMemberChange(event.getSession());
+        } else if (event.getEntity() instanceof Team) {
+            // 팀 이름이 바뀌면 그 팀 member 전부가 팀 이름 조건에 들어오거나 빠질 수 있다.
+            // 커밋 전에 다시 채워진 캐시도 있을 수 있으니 커밋 후에 한번 더 버린다.
+            dropTeamNameEntries();
+            pending(event.getSession()).teamUpdated = true;
+        }
+    }
+
+    @Override
+    public void onPostDelete(PostDeleteEvent event) {
+        if (event.getEntity() instanceof Member) {
+            onMemberChange(event.getSession());
+        }
+    }
+
+    private void onMemberChange(EventSource session) {
+        inFlight.incrementAndGet();
+        pending(session).changes++;
+    }
+
+    private Pending pending(EventSource session) {
+        return pending.computeIfAbsent(session, s -> {
+            session.getActionQueue().registerProcess((AfterTransactionCompletionProcess) (success, completed) -> {
+                Pending done = pending.remove(completed);
+                if (done == null) {
+                    return;
+                }
+                // changes 에 먼저 더하고 in-flight 에서 빼야 합이 잠깐이라도 줄지 않는다.
+                if (success) {
+                    changes.addAndGet(done.changes);
+                    if (done.teamUpdated) {
+                        dropTeamNameEntries();
+                    }
+                }
+                inFlight.addAndGet(-done.changes);
+            });
+            return new Pending();
+        });
+    }
+
+    private void dropTeamNameEntries() {
+        entries.keySet().removeIf(key -> key.getTeamName() != null);
+    }
+
+    /**
+     * 세션 하나에서만 쓰인다. (flush 와 커밋 후 처리는 같은 스레드)
+     */
+    private static class Pending {
+        long changes;
+        boolean teamUpdated;
+    }
+
+    @Override
+    public boolean requiresPostCommitHandling(EntityPersister persister) {
+        return false;
+    }
+}
@@ -1,21 +1,18 @@
 package com.example.querydsl.repository;
 
 import com.example.querydsl.domain.Member;
-import com.example.querydsl.domain.QMember;
-import com.example.querydsl.domain.QTeam;
 import com.example.querydsl.dto.MemberSearchCondition;
 import com.example.querydsl.dto.MemberTeamDto;
-import com.example.querydsl.dto.QMemberTeamDto;
-import com.querydsl.core.BooleanBuilder;
-import com.querydsl.core.types.Predicate;
+import com.example.querydsl.support.SearchMetrics;
 import com.querydsl.core.types.dsl.BooleanExpression;
 import com.querydsl.jpa.impl.JPAQueryFactory;
 import jakarta.persistence.EntityManager;
 import org.springframework.stereotype.Repository;
-import org.springframework.util.StringUtils;
 
+import java.util.ArrayList;
 import java.util.List;
 import java.util.Optional;
+import java.util.stream.Stream;
 
 import static com.example.querydsl.domain.QMember.*;
 import static com.example.querydsl.domain.QTeam.*;
@@ -26,6 +23,9 @@ public class MemberJpaRepository {
 
     private final EntityManager em;
     private final JPAQueryFactory queryFactory;
+    private final MemberSearchQueryCache queryCache;
+    private final SearchMetrics searchMetrics;
+    private final UsernameFilter usernameFilter;
 
 //    public MemberJpaRepository(EntityManager em, JPAQueryFactory queryFactory) { // requiredArgsConstructor 사용 시 추천
 //        this.em = em;
@@ -33,9 +33,15 @@ public class MemberJpaRepository {
 //    }
 
     // starter 에 bean으로 등록 안한 경우
-    public MemberJpaRepository(EntityManager em) {
+    public MemberJpaRepository(EntityManager em,
+                               MemberSearchQueryCache queryCache,
+                               SearchMetrics searchMetrics,
+                               UsernameFilter usernameFilter) {
         this.em = em;
         this.queryFactory = new JPAQueryFactory(em);
+        this.queryCache = queryCache;
+        this.searchMetrics = searchMetrics;
+        this.usernameFilter = usernameFilter;
     }
 
     public void save(Member member) {
@@ -57,17 +63,30 @@ public class MemberJpaRepository {
                 .fetch();
     }
 
+    // 없는 username 은 Bloom filter 에서 바로 빈 결과 (DB 조회 X)
     public List<Member> findByUsername(String username) {
-        return em.createQuery("select m from Member m where m.username = :username", Member.class)
+        UsernameFilter.Check check = usernameFilter.check(username);
+        if (!check.mightContain()) {
+            return new ArrayList<>();
+        }
+        List<Member> result = em.createQuery("select m from Member m where m.username = :username", Member.class)
                 .setParameter("username", username)
                 .getResultList();
+        usernameFilter.recordLookup(check, !result.isEmpty());
+        return result;
     }
 
     public List<Member> findByUsername_Querydsl(String username) {
-        return queryFactory
+        UsernameFilter.Check check = usernameFilter.check(username);
+        if (!check.mightContain()) {
+            return new ArrayList<>();
+        }
+        List<Member> result = queryFactory
                 .selectFrom(member)
                 .where(member.username.eq(username))
                 .fetch();
+        usernameFilter.recordLookup(check, !result.isEmpty());
+        return result;
     }
 
     /**
@@ -76,58 +95,24 @@ public class MemberJpaRepository {
      * 예) 어드민 페이지 이다.
      */
     public List<MemberTeamDto> searchByBuilder(MemberSearchCondition condition) {
-        BooleanBuilder builder = new BooleanBuilder();
-        if (hasText(condition.getUsername())) {
-            builder.and(member.username.eq(condition.getUsername()));
-        }
-        if (hasText(condition.getTeamName())) {
-            builder.and(team.name.eq(condition.getTeamName()));
-        }
-        if (condition.getAgeGoe() != null) {
-            builder.and(member.age.goe(condition.getAgeGoe()));
-        }
-        if (condition.getAgeLoe() != null) {
-            builder.and(member.age.loe(condition.getAgeLoe()));
-        }
-
-        // 맴버의 팀의 정보를 다 가지고 와야하니까 조인을 하자
-        return queryFactory
-                .select(new QMemberTeamDto(
-                        member.id.as("memberId"),
-                        member.username,
-                        member.age,
-                        team.id.as("teamId"),
-                        team.name.as("teamName")
-                ))
-                .from(member)
-                .leftJoin(member.team, team)
-                .where(builder)
-                .fetch();
-
-
+        // BooleanBuilder 로 조립하던 조건은 where 다중 파라미터와 같은 JPQL 이 나온다.
+        // 조건 조합별로 직렬화 해둔 JPQL 을 재사용 (BooleanBuilder 예제는 QuerydslBasicTest.dynamicQuery_BooleanBuilder)
+        return searchMetrics.record("searchByBuilder", condition, () -> queryCache.fetch(condition));
     }
 
     /**
      * where 다중 파라미터 사용 - dto 로 반환 받는 방법
      */
     public List<MemberTeamDto> search(MemberSearchCondition condition) {
-        return queryFactory
-                .select(new QMemberTeamDto(
-                        member.id.as("memberId"),
-                        member.username,
-                        member.age,
-                        team.id.as("teamId"),
-                        team.name.as("teamName")
-                ))
-                .from(member)
-                .leftJoin(member.team, team)
-                .where(
-                        usernameEq(condition.getUsername()),
-                        teamNameEq(condition.getTeamName()),
-                        ageGoe(condition.getAgeGoe()),
-                        ageLoe(condition.getAgeLoe())
-                )
-                .fetch();
+        return searchMetrics.record("search", condition, () -> queryCache.fetch(condition));
+    }
+
+    /**
+     * search 와 같은 조건이지만 결과를 메모리에 다 올리지 않고 스트림으로 읽는다. (대용량 export 용)
+     * 트랜잭션 안에서 try-with-resources 로 사용하자.
+     */
+    public Stream<MemberTeamDto> searchStream(MemberSearchCondition condition, int fetchSize) {
+        return queryCache.stream(condition, fetchSize);
     }
 
     /**
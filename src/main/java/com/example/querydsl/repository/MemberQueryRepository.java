@@ -6,29 +6,53 @@ import com.example.querydsl.dto.MemberSearchCondition;
 import com.example.querydsl.dto.MemberTeamDto;
 import com.example.querydsl.dto.QMemberTeamDto;
 import com.querydsl.core.types.dsl.BooleanExpression;
+import com.querydsl.jpa.impl.JPAQuery;
 import com.querydsl.jpa.impl.JPAQueryFactory;
 import jakarta.persistence.EntityManager;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.support.PageableExecutionUtils;
 import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
 
 import java.util.List;
 
 import static com.example.querydsl.domain.QMember.member;
 import static com.example.querydsl.domain.QTeam.team;
+import static org.hibernate.jpa.HibernateHints.HINT_CACHEABLE;
+import static org.hibernate.jpa.HibernateHints.HINT_CACHE_REGION;
 import static org.springframework.util.StringUtils.hasText;
 
 // 조회 요청이 복잡하고 특화된 쿼리라면 조회용 repository를 따로 구분하여 만드는것이 좋은 설계 방향일 수 있다.
 // 너무 모든것을 Custom repository에 담으려고는 하지 말자
+// 무거운 조회 전용이라 읽기 전용 트랜잭션 -> routing 활성화 시 replica 로 간다.
+// routing 활성화 시에는 쿼리 캐시를 쓰지 않는다. (아래 search 참고)
 @Repository
+@Transactional(readOnly = true)
 public class MemberQueryRepository {
 
+    public static final String SEARCH_CACHE_REGION = "member-search";
+
     private final JPAQueryFactory queryFactory;
+    private final boolean cacheable;
 
-    public MemberQueryRepository(EntityManager em) {
+    public MemberQueryRepository(EntityManager em,
+                                 @Value("${spring.datasource.routing.enabled:false}") boolean routingEnabled) {
         this.queryFactory = new JPAQueryFactory(em);
+        this.cacheable = !routingEnabled;
     }
 
     /**
      * where 다중 파라미터 사용 - dto 로 반환 받는 방법
+     *
+     * 대시보드에서 같은 조건으로 계속 호출하기 때문에 결과를 쿼리 캐시(member-search 영역)에 올린다.
+     * 캐시 키는 실제 SQL + 바인딩 값이라 조건(빈 문자열은 null 과 같은 조건)과 페이지 별로 따로 저장된다.
+     * member, team 테이블에 insert / update / delete (querydsl 벌크 update, delete 포함) 가 일어나면
+     * hibernate 가 테이블별 수정 시각으로 판단해서 알아서 무효화 한다. (크기 / ttl 은 ehcache.xml)
+     *
+     * routing 이 켜져 있으면 캐시 미스를 replica 에서 읽는데, 복제가 늦으면 primary 커밋(무효화) 이후 시각으로
+     * 옛날 row 가 캐시되어 다음 쓰기까지 계속 나간다. 그래서 그때는 캐시하지 않고 매번 replica 에서 읽는다.
      */
     public List<MemberTeamDto> search(MemberSearchCondition condition) {
         return queryFactory
@@ -47,9 +71,56 @@ public class MemberQueryRepository {
                         ageGoe(condition.getAgeGoe()),
                         ageLoe(condition.getAgeLoe())
                 )
+                .setHint(HINT_CACHEABLE, cacheable)
+                .setHint(HINT_CACHE_REGION, SEARCH_CACHE_REGION)
                 .fetch();
     }
 
+    /**
+     * search 의 페이징 버전 - 컨텐츠, count 모두 쿼리 캐시 사용
+     */
+    public Page<MemberTeamDto> searchPage(MemberSearchCondition condition, Pageable pageable) {
+        List<MemberTeamDto> content = queryFactory
+                .select(new QMemberTeamDto(
+                        member.id.as("memberId"),
+                        member.username,
+                        member.age,
+                        team.id.as("teamId"),
+                        team.name.as("teamName")
+                ))
+                .from(member)
+                .leftJoin(member.team, team)
+                .where(
+                        usernameEq(condition.getUsername()),
+                        teamNameEq(condition.getTeamName()),
+                        ageGoe(condition.getAgeGoe()),
+                        ageLoe(condition.getAgeLoe())
+                )
+                .offset(pageable.getOffset())
+                .limit(pageable.getPageSize())
+                .setHint(HINT_CACHEABLE, cacheable)
+                .setHint(HINT_CACHE_REGION, SEARCH_CACHE_REGION)
+                .fetch();
+
+        JPAQuery<Long> countQuery = queryFactory
+                .select(member.id.count())
+                .from(member);
+        if (hasText(condition.getTeamName())) {
+            countQuery.join(member.team, team);
+        }
+        countQuery
+                .where(
+                        usernameEq(condition.getUsername()),
+                        teamNameEq(condition.getTeamName()),
+                        ageGoe(condition.getAgeGoe()),
+                        ageLoe(condition.getAgeLoe())
+                )
+                .setHint(HINT_CACHEABLE, cacheable)
+                .setHint(HINT_CACHE_REGION, SEARCH_CACHE_REGION);
+
+        return PageableExecutionUtils.getPage(content, pageable, countQuery::fetchOne);
+    }
+
 
     private BooleanExpression usernameEq(String username) {
         return hasText(username) ? member.username.eq(username) : null;
@@ -3,10 +3,7 @@ package com.example.querydsl.repository;
 import com.example.querydsl.domain.Member;
 import org.springframework.data.jpa.repository.JpaRepository;
 
-import java.util.List;
-
+// findByUsername 은 username Bloom filter 를 먼저 거치도록 MemberRepositoryCustom 으로 옮겼다.
 public interface MemberRepository extends JpaRepository<Member,Long>, MemberRepositoryCustom {
-    List<Member> findByUsername(String username);
-
 
 }
@@ -1,18 +1,47 @@
 package com.example.querydsl.repository;
 
+import com.example.querydsl.domain.Member;
+import com.example.querydsl.dto.EstimatedPage;
+import com.example.querydsl.dto.MemberCursorPage;
+import com.example.querydsl.dto.MemberField;
 import com.example.querydsl.dto.MemberSearchCondition;
 import com.example.querydsl.dto.MemberTeamDto;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
 
+import java.util.Collection;
 import java.util.List;
+import java.util.Map;
 
 public interface MemberRepositoryCustom {
+    List<Member> findByUsername(String username);
+
+    Map<Long, Member> findByIds(Collection<Long> ids);
+
+    Map<String, List<Member>> findByUsernames(Collection<String> usernames);
+
     List<MemberTeamDto> search(MemberSearchCondition condition);
 
     Page<MemberTeamDto> searchPageSimple(MemberSearchCondition condition, Pageable pageable);
 
+    List<Map<String, Object>> searchFields(MemberSearchCondition condition, List<MemberField> fields);
+
+    Page<Map<String, Object>> searchPageFields(MemberSearchCondition condition, List<MemberField> fields, Pageable pageable);
+
     Page<MemberTeamDto> searchPageComplexV1(MemberSearchCondition condition, Pageable pageable);
 
     Page<MemberTeamDto> searchPageComplex(MemberSearchCondition condition, Pageable pageable);
+
+    Page<MemberTeamDto> searchPageDeferredJoin(MemberSearchCondition condition, Pageable pageable);
+
+    Slice<MemberTeamDto> searchSlice(MemberSearchCondition condition, Pageable pageable);
+
+    EstimatedPage<MemberTeamDto> searchPageEstimated(MemberSearchCondition condition, Pageable pageable);
+
+    List<MemberTeamDto> searchJoinFree(MemberSearchCondition condition);
+
+    Page<MemberTeamDto> searchPageJoinFree(MemberSearchCondition condition, Pageable pageable);
+
+    MemberCursorPage searchByCursor(MemberSearchCondition condition, Long lastMemberId, int size);
 }
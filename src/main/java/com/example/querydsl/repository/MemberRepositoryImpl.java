@@ -1,20 +1,40 @@
 package com.example.querydsl.repository;
 
 import com.example.querydsl.domain.Member;
+import com.example.querydsl.dto.EstimatedPage;
+import com.example.querydsl.dto.MemberCursor;
+import com.example.querydsl.dto.MemberCursorPage;
+import com.example.querydsl.dto.MemberField;
 import com.example.querydsl.dto.MemberSearchCondition;
 import com.example.querydsl.dto.MemberTeamDto;
 import com.example.querydsl.dto.QMemberTeamDto;
+import com.example.querydsl.support.CollationKey;
+import com.example.querydsl.support.SearchMetrics;
 import com.querydsl.core.QueryResults;
+import com.querydsl.core.Tuple;
+import com.querydsl.core.types.Expression;
 import com.querydsl.core.types.dsl.BooleanExpression;
 import com.querydsl.jpa.impl.JPAQuery;
 import com.querydsl.jpa.impl.JPAQueryFactory;
 import jakarta.persistence.EntityManager;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.task.TaskRejectedException;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.PageImpl;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
+import org.springframework.data.domain.SliceImpl;
 import org.springframework.data.support.PageableExecutionUtils;
 
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
 import java.util.List;
+import java.util.Map;
+import java.util.OptionalLong;
+import java.util.concurrent.CompletableFuture;
 
 import static com.example.querydsl.domain.QMember.member;
 import static com.example.querydsl.domain.QTeam.team;
@@ -24,9 +44,129 @@ import static org.springframework.util.StringUtils.hasText;
 public class MemberRepositoryImpl implements MemberRepositoryCustom{
 
     private final JPAQueryFactory queryFactory;
+    private final MemberSearchQueryCache queryCache;
+    private final ParallelCountQuery parallelCountQuery;
+    private final SearchMetrics searchMetrics;
+    private final MemberAgeIndex memberAgeIndex;
+    private final UsernameFilter usernameFilter;
+    private final MemberCountEstimator countEstimator;
+    private final int lookupChunkSize;
 
-    public MemberRepositoryImpl(EntityManager em) {
+    public MemberRepositoryImpl(EntityManager em,
+                                MemberSearchQueryCache queryCache,
+                                ParallelCountQuery parallelCountQuery,
+                                SearchMetrics searchMetrics,
+                                MemberAgeIndex memberAgeIndex,
+                                UsernameFilter usernameFilter,
+                                MemberCountEstimator countEstimator,
+                                @Value("${member.batch-lookup.chunk-size:1000}") int lookupChunkSize) {
         this.queryFactory = new JPAQueryFactory(em);
+        this.queryCache = queryCache;
+        this.parallelCountQuery = parallelCountQuery;
+        this.searchMetrics = searchMetrics;
+        this.memberAgeIndex = memberAgeIndex;
+        this.usernameFilter = usernameFilter;
+        this.countEstimator = countEstimator;
+        this.lookupChunkSize = lookupChunkSize;
+    }
+
+    /**
+     * 없는 username 은 Bloom filter 에서 바로 빈 결과 (DB 조회 X)
+     */
+    @Override
+    public List<Member> findByUsername(String username) {
+        UsernameFilter.Check check = usernameFilter.check(username);
+        if (!check.mightContain()) {
+            return new ArrayList<>();
+        }
+        List<Member> result = queryFactory
+                .selectFrom(member)
+                .where(member.username.eq(username))
+                .fetch();
+        usernameFilter.recordLookup(check, !result.isEmpty());
+        return result;
+    }
+
+    /**
+     * id 여러 개를 IN 절 chunk(member.batch-lookup.chunk-size) 단위로 한번에 조회한다. (id 마다 findById X)
+     *
+     * @return 입력 순서대로 (중복 id 는 한번, 없는 id 는 빠진다)
+     */
+    @Override
+    public Map<Long, Member> findByIds(Collection<Long> ids) {
+        List<Long> keys = distinct(ids);
+        Map<Long, Member> found = new HashMap<>(keys.size() * 2);
+        for (List<Long> chunk : chunks(keys)) {
+            for (Member m : queryFactory.selectFrom(member).where(member.id.in(chunk)).fetch()) {
+                found.put(m.getId(), m);
+            }
+        }
+
+        Map<Long, Member> result = new LinkedHashMap<>(keys.size() * 2);
+        for (Long id : keys) {
+            Member m = found.get(id);
+            if (m != null) {
+                result.put(id, m);
+            }
+        }
+        return result;
+    }
+
+    /**
+     * username 여러 개를 한번에 조회한다. Bloom filter 로 확실히 없는 이름은 먼저 뺀다.
+     *
+     * @return 입력 순서대로 (중복 username 은 한번, 없는 username 은 빠진다)
+     */
+    @Override
+    public Map<String, List<Member>> findByUsernames(Collection<String> usernames) {
+        List<String> keys = distinct(usernames);
+        List<String> candidates = new ArrayList<>(keys.size());
+        List<UsernameFilter.Check> checks = new ArrayList<>(keys.size());
+        for (String username : keys) {
+            UsernameFilter.Check check = usernameFilter.check(username);
+            if (check.mightContain()) {
+                candidates.add(username);
+                checks.add(check);
+            }
+        }
+
+        Map<String, List<Member>> found = new HashMap<>(candidates.size() * 2);
+        for (List<String> chunk : chunks(candidates)) {
+            List<Member> members = queryFactory
+                    .selectFrom(member)
+                    .where(member.username.in(chunk))
+                    .orderBy(member.id.asc())
+                    .fetch();
+            for (Member m : members) {
+                // DB 는 대소문자 / 악센트를 무시하고 찾기 때문에 같은 기준의 키로 묶는다.
+                found.computeIfAbsent(CollationKey.of(m.getUsername()), key -> new ArrayList<>()).add(m);
+            }
+        }
+
+        Map<String, List<Member>> result = new LinkedHashMap<>(found.size() * 2);
+        for (int i = 0; i < candidates.size(); i++) {
+            String username = candidates.get(i);
+            List<Member> members = found.get(CollationKey.of(username));
+            usernameFilter.recordLookup(checks.get(i), members != null);
+            if (members != null) {
+                result.put(username, members);
+            }
+        }
+        return result;
+    }
+
+    private static <T> List<T> distinct(Collection<T> keys) {
+        List<T> result = new ArrayList<>(new LinkedHashSet<>(keys));
+        result.remove(null);
+        return result;
+    }
+
+    private <T> List<List<T>> chunks(List<T> keys) {
+        List<List<T>> chunks = new ArrayList<>((keys.size() + lookupChunkSize - 1) / lookupChunkSize);
+        for (int from = 0; from < keys.size(); from += lookupChunkSize) {
+            chunks.add(keys.subList(from, Math.min(from + lookupChunkSize, keys.size())));
+        }
+        return chunks;
     }
 
 
@@ -35,23 +175,8 @@ public class MemberRepositoryImpl implements MemberRepositoryCustom{
      */
     @Override
     public List<MemberTeamDto> search(MemberSearchCondition condition) {
-        return queryFactory
-                .select(new QMemberTeamDto(
-                        member.id.as("memberId"),
-                        member.username,
-                        member.age,
-                        team.id.as("teamId"),
-                        team.name.as("teamName")
-                ))
-                .from(member)
-                .leftJoin(member.team, team)
-                .where(
-                        usernameEq(condition.getUsername()),
-                        teamNameEq(condition.getTeamName()),
-                        ageGoe(condition.getAgeGoe()),
-                        ageLoe(condition.getAgeLoe())
-                )
-                .fetch();
+        // 조건 조합별로 직렬화 해둔 JPQL 재사용
+        return searchMetrics.record("search", condition, () -> queryCache.fetch(condition));
     }
 
 
@@ -71,6 +196,10 @@ public class MemberRepositoryImpl implements MemberRepositoryCustom{
         return ageLoe != null ? member.age.loe(ageLoe) : null;
     }
 
+    private BooleanExpression memberIdGt(Long lastMemberId) { // 커서(seek) 조건
+        return lastMemberId != null ? member.id.gt(lastMemberId) : null;
+    }
+
     // null을 조심한다면 위의 메서드 조합 가능
     private BooleanExpression ageBetween(int ageGoe, int ageLoe) {
         return ageGoe(ageGoe).and(ageLoe(ageLoe));
@@ -78,6 +207,10 @@ public class MemberRepositoryImpl implements MemberRepositoryCustom{
 
     @Override
     public Page<MemberTeamDto> searchPageSimple(MemberSearchCondition condition, Pageable pageable) {
+        return searchMetrics.record("searchPageSimple", condition, () -> fetchPageSimple(condition, pageable));
+    }
+
+    private Page<MemberTeamDto> fetchPageSimple(MemberSearchCondition condition, Pageable pageable) {
         QueryResults<MemberTeamDto> result = queryFactory
                 .select(new QMemberTeamDto(
                         member.id.as("memberId"),
@@ -105,6 +238,66 @@ public class MemberRepositoryImpl implements MemberRepositoryCustom{
 
     }
 
+    /**
+     * 요청한 컬럼(fields)만 select 한다. (Tuple -> 필드 이름 순서대로 Map)
+     *
+     * teamName 컬럼이나 team 조건이 없으면 team 조인을 아예 하지 않는다.
+     * 컬럼 수 / 조인이 줄어든 만큼 DB 가 읽고 보내는 양, 응답 json 크기가 같이 줄어든다.
+     */
+    @Override
+    public List<Map<String, Object>> searchFields(MemberSearchCondition condition, List<MemberField> fields) {
+        return searchMetrics.record("searchFields", condition, () -> toMaps(fieldQuery(condition, fields).fetch(), fields));
+    }
+
+    /**
+     * count 는 searchPageComplex 와 같다. (필요할 때만, 나이 인덱스 먼저)
+     */
+    @Override
+    public Page<Map<String, Object>> searchPageFields(MemberSearchCondition condition, List<MemberField> fields, Pageable pageable) {
+        return searchMetrics.record("searchPageFields", condition, () -> {
+            List<Tuple> tuples = fieldQuery(condition, fields)
+                    .offset(pageable.getOffset())
+                    .limit(pageable.getPageSize())
+                    .fetch();
+            return PageableExecutionUtils.getPage(toMaps(tuples, fields), pageable,
+                    () -> memberAgeIndex.count(condition).orElseGet(() -> queryCache.count(condition)));
+        });
+    }
+
+    private JPAQuery<Tuple> fieldQuery(MemberSearchCondition condition, List<MemberField> fields) {
+        Expression<?>[] select = new Expression<?>[fields.size()];
+        boolean teamColumn = false;
+        for (int i = 0; i < select.length; i++) {
+            select[i] = fields.get(i).getExpression();
+            teamColumn |= fields.get(i).requiresTeamJoin();
+        }
+
+        JPAQuery<Tuple> query = queryFactory.select(select).from(member);
+        if (hasText(condition.getTeamName())) {
+            query.join(member.team, team);
+        } else if (teamColumn) {
+            query.leftJoin(member.team, team);
+        }
+        return query.where(
+                usernameEq(condition.getUsername()),
+                teamNameEq(condition.getTeamName()),
+                ageGoe(condition.getAgeGoe()),
+                ageLoe(condition.getAgeLoe())
+        );
+    }
+
+    private static List<Map<String, Object>> toMaps(List<Tuple> tuples, List<MemberField> fields) {
+        List<Map<String, Object>> result = new ArrayList<>(tuples.size());
+        for (Tuple tuple : tuples) {
+            Map<String, Object> row = new LinkedHashMap<>(fields.size() * 2);
+            for (MemberField field : fields) {
+                row.put(field.getProperty(), tuple.get(field.getExpression()));
+            }
+            result.add(row);
+        }
+        return result;
+    }
+
     /**
      * 콘텐츠랑 토탈을 따로 쿼리를 구분해서 날린다.
      *
@@ -117,37 +310,13 @@ public class MemberRepositoryImpl implements MemberRepositoryCustom{
      */
     @Override
     public Page<MemberTeamDto> searchPageComplexV1(MemberSearchCondition condition, Pageable pageable) {
-        List<MemberTeamDto> content = queryFactory
-                .select(new QMemberTeamDto(
-                        member.id.as("memberId"),
-                        member.username,
-                        member.age,
-                        team.id.as("teamId"),
-                        team.name.as("teamName")
-                ))
-                .from(member)
-                .leftJoin(member.team, team)
-                .where(
-                        usernameEq(condition.getUsername()),
-                        teamNameEq(condition.getTeamName()),
-                        ageGoe(condition.getAgeGoe()),
-                        ageLoe(condition.getAgeLoe())
-                )
-                .offset(pageable.getOffset())
-                .limit(pageable.getPageSize())
-                .fetch();// fetch라 그냥 content만 날린다.
+        return searchMetrics.record("searchPageComplexV1", condition, () -> fetchPageComplexV1(condition, pageable));
+    }
 
-        long total = queryFactory
-                .select(member)
-                .from(member)
-                .leftJoin(member.team, team)
-                .where(
-                        usernameEq(condition.getUsername()),
-                        teamNameEq(condition.getTeamName()),
-                        ageGoe(condition.getAgeGoe()),
-                        ageLoe(condition.getAgeLoe())
-                )
-                .fetchCount();
+    private Page<MemberTeamDto> fetchPageComplexV1(MemberSearchCondition condition, Pageable pageable) {
+        List<MemberTeamDto> content = queryCache.fetch(condition, pageable.getOffset(), pageable.getPageSize());
+
+        long total = queryCache.count(condition);
 
         return new PageImpl<>(content, pageable, total);
     }
@@ -159,10 +328,136 @@ public class MemberRepositoryImpl implements MemberRepositoryCustom{
      * 마지막 페이지 일 때 (offset + 컨텐츠 사이즈를 더해서 전체 사이즈 구함)
      * 마지막에 fetchCount 를 하지말고 인자로 넘겨주자
      * PageableExecutionUtils.getPage에서 위의 조건에 맞춰서 함수를 호출 할지 말지 결정함
+     *
+     * member.search.parallel-count.enabled=true 면 count 를 별도 커넥션으로 컨텐츠 쿼리와 동시에 실행한다.
+     * username 조건이 없으면 count 는 먼저 메모리 나이 인덱스(MemberAgeIndex)로 답하고, 못 할 때만 SQL 로 센다.
      */
     @Override
     public Page<MemberTeamDto> searchPageComplex(MemberSearchCondition condition, Pageable pageable) {
-            List<MemberTeamDto> content = queryFactory
+        return searchMetrics.record("searchPageComplex", condition, () -> fetchPageComplex(condition, pageable));
+    }
+
+    private Page<MemberTeamDto> fetchPageComplex(MemberSearchCondition condition, Pageable pageable) {
+        CompletableFuture<Long> total = submitParallelCount(condition);
+        if (total != null) {
+            try {
+                List<MemberTeamDto> content = queryCache.fetch(condition, pageable.getOffset(), pageable.getPageSize());
+                return PageableExecutionUtils.getPage(content, pageable, () -> ParallelCountQuery.join(total));
+            } finally {
+                // count 가 필요 없는 페이지였다면 결과를 버린다. (이미 실행 중인 DB 쿼리는 query timeout 까지 돈다)
+                total.cancel(false);
+            }
+        }
+
+        List<MemberTeamDto> content = queryCache.fetch(condition, pageable.getOffset(), pageable.getPageSize());
+
+        // 컨텐츠 쿼리(자동 flush) 다음에 물어봐야 이 트랜잭션의 미커밋 변경 여부를 인덱스가 알 수 있다.
+        return PageableExecutionUtils.getPage(content, pageable,
+                () -> memberAgeIndex.count(condition).orElseGet(() -> queryCache.count(condition)));
+    }
+
+    /**
+     * @return 병렬 count 를 안 쓰거나 count 스레드 풀이 꽉 찼으면 null (컨텐츠 다음에 순차로 센다)
+     */
+    private CompletableFuture<Long> submitParallelCount(MemberSearchCondition condition) {
+        if (!parallelCountQuery.isEnabled() || memberAgeIndex.count(condition).isPresent()) {
+            return null;
+        }
+        try {
+            return parallelCountQuery.submit(condition);
+        } catch (TaskRejectedException e) {
+            return null;
+        }
+    }
+
+    /**
+     * deferred join (late row lookup) 페이징
+     *
+     * offset 페이징은 DB 가 버릴 row 까지 team 조인 + 전체 컬럼으로 만들어서 넘긴다.
+     * 먼저 같은 조건으로 member.id 만 offset / limit 하고 (좁은 인덱스만 읽음),
+     * 그 페이지 id 들의 row 만 IN 으로 다시 읽어서 id 쿼리 순서대로 맞춘다. count 는 searchPageComplex 와 같다.
+     */
+    @Override
+    public Page<MemberTeamDto> searchPageDeferredJoin(MemberSearchCondition condition, Pageable pageable) {
+        return searchMetrics.record("searchPageDeferredJoin", condition, () -> {
+            List<Long> ids = queryCache.fetchIds(condition, pageable.getOffset(), pageable.getPageSize());
+            List<MemberTeamDto> content = queryCache.fetchByIds(ids);
+            return PageableExecutionUtils.getPage(content, pageable,
+                    () -> memberAgeIndex.count(condition).orElseGet(() -> queryCache.count(condition)));
+        });
+    }
+
+    /**
+     * 전체 건수가 필요 없는 무한 스크롤용 - count 쿼리를 아예 날리지 않는다.
+     * size + 1 건을 조회해서 다음 페이지가 있는지만 판단한다. (항상 SQL 1번)
+     */
+    @Override
+    public Slice<MemberTeamDto> searchSlice(MemberSearchCondition condition, Pageable pageable) {
+        return searchMetrics.record("searchSlice", condition, () -> {
+            int size = pageable.getPageSize();
+            List<MemberTeamDto> content = queryCache.fetch(condition, pageable.getOffset(), size + 1);
+            boolean hasNext = content.size() > size;
+            if (hasNext) {
+                content.remove(size);
+            }
+            return new SliceImpl<>(content, pageable, hasNext);
+        });
+    }
+
+    /**
+     * 전체 건수를 추정치로 허용하는 페이징 (결과가 수백만 건이면 정확한 count 가 응답 시간 대부분이다)
+     *
+     * 마지막 페이지라서 건수를 바로 알 수 있거나 나이 인덱스로 셀 수 있으면 정확한 값,
+     * 아니면 MemberCountEstimator 의 추정치(오차 한계 포함)를 쓴다. 작은 결과는 추정하지 않는다.
+     */
+    @Override
+    public EstimatedPage<MemberTeamDto> searchPageEstimated(MemberSearchCondition condition, Pageable pageable) {
+        return searchMetrics.record("searchPageEstimated", condition, () -> {
+            long offset = pageable.getOffset();
+            int size = pageable.getPageSize();
+            List<MemberTeamDto> content = queryCache.fetch(condition, offset, size);
+
+            // PageableExecutionUtils 와 같은 기준 - 마지막 페이지면 count 가 필요 없다.
+            if (content.size() < size && (offset == 0 || !content.isEmpty())) {
+                return new EstimatedPage<>(content, pageable, offset + content.size(), true, 0);
+            }
+            OptionalLong indexed = memberAgeIndex.count(condition);
+            if (indexed.isPresent()) {
+                return new EstimatedPage<>(content, pageable, indexed.getAsLong(), true, 0);
+            }
+            MemberCountEstimator.CountEstimate total = countEstimator.estimate(condition, () -> queryCache.count(condition));
+            return new EstimatedPage<>(content, pageable, total.count(), total.exact(), total.maxError());
+        });
+    }
+
+    /**
+     * team 조인 없이 member 의 반정규화 컬럼(team_name)만으로 조회한다.
+     * 결과는 search / searchPageComplex 와 같고, 팀 이름을 바꾼 직후 전파가 끝나기 전까지만 옛 이름이 보일 수 있다.
+     */
+    @Override
+    public List<MemberTeamDto> searchJoinFree(MemberSearchCondition condition) {
+        return searchMetrics.record("searchJoinFree", condition, () -> queryCache.fetchJoinFree(condition, -1, -1));
+    }
+
+    @Override
+    public Page<MemberTeamDto> searchPageJoinFree(MemberSearchCondition condition, Pageable pageable) {
+        return searchMetrics.record("searchPageJoinFree", condition, () -> {
+            List<MemberTeamDto> content = queryCache.fetchJoinFree(condition, pageable.getOffset(), pageable.getPageSize());
+            return PageableExecutionUtils.getPage(content, pageable, () -> queryCache.countJoinFree(condition));
+        });
+    }
+
+    /**
+     * 커서(keyset) 페이징
+     *
+     * offset 은 앞 페이지의 row 를 전부 읽고 버리기 때문에 뒤로 갈수록 느려진다.
+     * 마지막으로 내려준 member id 보다 큰 row 부터 pk 인덱스를 타고 바로 읽기 때문에 몇 번째 페이지든 비용이 같다.
+     * size + 1 건을 조회해서 다음 페이지가 있는지 판단한다. (count 쿼리 X)
+     */
+    @Override
+    public MemberCursorPage searchByCursor(MemberSearchCondition condition, Long lastMemberId, int size) {
+        return searchMetrics.record("searchByCursor", condition, () -> {
+            JPAQuery<MemberTeamDto> query = queryFactory
                     .select(new QMemberTeamDto(
                             member.id.as("memberId"),
                             member.username,
@@ -170,31 +465,29 @@ public class MemberRepositoryImpl implements MemberRepositoryCustom{
                             team.id.as("teamId"),
                             team.name.as("teamName")
                     ))
-                    .from(member)
-                    .leftJoin(member.team, team)
+                    .from(member);
+            // team 조건이 있으면 inner join 으로 충분하다. (team.name 인덱스부터 읽을 수 있게)
+            if (hasText(condition.getTeamName())) {
+                query.join(member.team, team);
+            } else {
+                query.leftJoin(member.team, team);
+            }
+            List<MemberTeamDto> result = query
                     .where(
+                            memberIdGt(lastMemberId),
                             usernameEq(condition.getUsername()),
                             teamNameEq(condition.getTeamName()),
                             ageGoe(condition.getAgeGoe()),
                             ageLoe(condition.getAgeLoe())
                     )
-                    .offset(pageable.getOffset())
-                    .limit(pageable.getPageSize())
-                    .fetch();// fetch라 그냥 content만 날린다.
-
-        JPAQuery<Member> countQuery = queryFactory
-                .select(member)
-                .from(member)
-                .leftJoin(member.team, team)
-                .where(
-                        usernameEq(condition.getUsername()),
-                        teamNameEq(condition.getTeamName()),
-                        ageGoe(condition.getAgeGoe()),
-                        ageLoe(condition.getAgeLoe())
-                );
+                    .orderBy(member.id.asc()) // 커서가 id 라서 정렬도 id 로 고정
+                    .limit(size + 1)
+                    .fetch();
 
-//        return PageableExecutionUtils.getPage(content, pageable, () -> countQuery.fetchCount());
-        //==메서드 레퍼런스==/
-        return PageableExecutionUtils.getPage(content, pageable, countQuery::fetchCount);
+            boolean hasNext = result.size() > size;
+            List<MemberTeamDto> content = hasNext ? new ArrayList<>(result.subList(0, size)) : result;
+            String nextCursor = hasNext ? MemberCursor.encode(content.get(content.size() - 1).getMemberId()) : null;
+            return new MemberCursorPage(content, nextCursor, hasNext);
+        });
     }
 }
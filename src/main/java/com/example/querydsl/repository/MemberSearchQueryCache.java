@@ -0,0 +1,280 @@
+package com.example.querydsl.repository;
+
+import com.example.querydsl.dto.MemberSearchCondition;
+import com.example.querydsl.dto.MemberTeamDto;
+import com.example.querydsl.dto.QMemberTeamDto;
+import com.querydsl.core.types.Expression;
+import com.querydsl.core.types.dsl.Param;
+import com.querydsl.jpa.HQLTemplates;
+import com.querydsl.jpa.JPQLSerializer;
+import com.querydsl.jpa.JPQLTemplates;
+import com.querydsl.jpa.impl.JPAQuery;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.TypedQuery;
+import org.hibernate.jpa.HibernateHints;
+import org.hibernate.jpa.SpecHints;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.stream.Stream;
+
+import static com.example.querydsl.domain.QMember.member;
+import static com.example.querydsl.domain.QTeam.team;
+import static com.example.querydsl.dto.MemberSearchCondition.*;
+
+/**
+ * MemberSearchCondition 조합(shape)별로 직렬화된 JPQL 을 캐시한다.
+ *
+ * 조건은 null / non-null 조합이 16가지 뿐이라서 where 절 모양도 16가지 뿐이다.
+ * 매 요청마다 querydsl 식(AST)을 새로 만들고 JPQL 로 직렬화할 필요 없이
+ * 처음 한번만 Param 으로 만들어 두고, 요청마다 바인딩 값만 세팅한다.
+ *
+ * joinFree 쿼리는 team 을 조인하지 않고 member 의 반정규화 컬럼(team_id, team_name)만 읽는다.
+ * id 쿼리는 deferred join 페이징용 - 조건에 맞는 member.id 만 읽는다. (count 와 같은 조인)
+ * offset 페이징 쿼리 (컨텐츠 / id) 는 member.id 로 정렬한다. (페이지끼리 겹치거나 빠지지 않게, 두 페이징 방식이 같은 순서로)
+ */
+@Component
+public class MemberSearchQueryCache {
+
+    private static final JPQLTemplates TEMPLATES = HQLTemplates.DEFAULT;
+
+    private static final Param<String> USERNAME_PARAM = new Param<>(String.class, "username");
+    private static final Param<String> TEAM_NAME_PARAM = new Param<>(String.class, "teamName");
+    private static final Param<Integer> AGE_GOE_PARAM = new Param<>(Integer.class, "ageGoe");
+    private static final Param<Integer> AGE_LOE_PARAM = new Param<>(Integer.class, "ageLoe");
+
+    private static final QMemberTeamDto PROJECTION = new QMemberTeamDto(
+            member.id.as("memberId"),
+            member.username,
+            member.age,
+            team.id.as("teamId"),
+            team.name.as("teamName")
+    );
+
+    // member.team.id 는 FK 컬럼이라 조인이 생기지 않는다.
+    private static final QMemberTeamDto JOIN_FREE_PROJECTION = new QMemberTeamDto(
+            member.id.as("memberId"),
+            member.username,
+            member.age,
+            member.team.id.as("teamId"),
+            member.teamName
+    );
+
+    private static final Expression<Long> COUNT = member.id.count();
+
+    private final EntityManager em;
+
+    private final AtomicReferenceArray<CompiledQuery> contentQueries = new AtomicReferenceArray<>(SHAPE_COUNT);
+    private final AtomicReferenceArray<CompiledQuery> pagedContentQueries = new AtomicReferenceArray<>(SHAPE_COUNT);
+    private final AtomicReferenceArray<CompiledQuery> countQueries = new AtomicReferenceArray<>(SHAPE_COUNT);
+    private final AtomicReferenceArray<CompiledQuery> joinFreeContentQueries = new AtomicReferenceArray<>(SHAPE_COUNT);
+    private final AtomicReferenceArray<CompiledQuery> joinFreePagedContentQueries = new AtomicReferenceArray<>(SHAPE_COUNT);
+    private final AtomicReferenceArray<CompiledQuery> joinFreeCountQueries = new AtomicReferenceArray<>(SHAPE_COUNT);
+    private final AtomicReferenceArray<CompiledQuery> idQueries = new AtomicReferenceArray<>(SHAPE_COUNT);
+
+    public MemberSearchQueryCache(EntityManager em) {
+        this.em = em;
+    }
+
+    public List<MemberTeamDto> fetch(MemberSearchCondition condition) {
+        return fetch(condition, -1, -1);
+    }
+
+    /**
+     * @param offset 0 보다 작으면 페이징 X (페이징이면 member.id 순서)
+     */
+    public List<MemberTeamDto> fetch(MemberSearchCondition condition, long offset, int limit) {
+        CompiledQuery compiled = offset >= 0
+                ? compiled(pagedContentQueries, condition.shape(), PROJECTION, false, true)
+                : compiled(contentQueries, condition.shape(), PROJECTION, false, false);
+        return fetch(compiled, condition, offset, limit);
+    }
+
+    /**
+     * team 조인 없이 member 만 읽는다. (결과는 fetch 와 같다 - team_name 이 맞게 유지되고 있다는 전제)
+     *
+     * @param offset 0 보다 작으면 페이징 X (페이징이면 member.id 순서)
+     */
+    public List<MemberTeamDto> fetchJoinFree(MemberSearchCondition condition, long offset, int limit) {
+        CompiledQuery compiled = offset >= 0
+                ? compiled(joinFreePagedContentQueries, condition.shape(), JOIN_FREE_PROJECTION, true, true)
+                : compiled(joinFreeContentQueries, condition.shape(), JOIN_FREE_PROJECTION, true, false);
+        return fetch(compiled, condition, offset, limit);
+    }
+
+    /**
+     * deferred join 1단계 - 넓은 row(team 조인, 컬럼 전부) 대신 member.id 만으로 offset 을 넘긴다.
+     * 인덱스만 읽고 끝낼 수 있어서 깊은 offset 에서 버리는 비용이 작다.
+     * member.id 순서로 정렬해야 페이지끼리 겹치거나 빠지는 row 가 없다. (fetch 의 offset 페이징과 같은 순서)
+     */
+    public List<Long> fetchIds(MemberSearchCondition condition, long offset, int limit) {
+        CompiledQuery compiled = compiled(idQueries, condition.shape(), member.id, false, true);
+        return compiled.bind(em.createQuery(compiled.jpql(), Long.class), condition)
+                .setFirstResult(Math.toIntExact(offset))
+                .setMaxResults(limit)
+                .getResultList();
+    }
+
+    /**
+     * deferred join 2단계 - 고른 id 의 row 만 IN 으로 읽고 ids 순서대로 돌려준다.
+     */
+    public List<MemberTeamDto> fetchByIds(List<Long> ids) {
+        if (ids.isEmpty()) {
+            return new ArrayList<>();
+        }
+        List<MemberTeamDto> rows = new JPAQuery<>(em, TEMPLATES)
+                .select(PROJECTION)
+                .from(member)
+                .leftJoin(member.team, team)
+                .where(member.id.in(ids))
+                .fetch();
+
+        Map<Long, MemberTeamDto> byId = new HashMap<>(rows.size() * 2);
+        for (MemberTeamDto row : rows) {
+            byId.put(row.getMemberId(), row);
+        }
+        List<MemberTeamDto> result = new ArrayList<>(ids.size());
+        for (Long id : ids) {
+            MemberTeamDto row = byId.get(id);
+            if (row != null) { // 두 쿼리 사이에 지워진 row
+                result.add(row);
+            }
+        }
+        return result;
+    }
+
+    private List<MemberTeamDto> fetch(CompiledQuery compiled, MemberSearchCondition condition, long offset, int limit) {
+        TypedQuery<Object[]> query = compiled.bind(em.createQuery(compiled.jpql(), Object[].class), condition);
+        if (offset >= 0) {
+            query.setFirstResult(Math.toIntExact(offset));
+            query.setMaxResults(limit);
+        }
+
+        List<Object[]> rows = query.getResultList();
+        List<MemberTeamDto> result = new ArrayList<>(rows.size());
+        for (Object[] row : rows) {
+            // 두 프로젝션 모두 같은 생성자라서 어느 쪽으로 만들어도 같다.
+            result.add(PROJECTION.newInstance(row));
+        }
+        return result;
+    }
+
+    /**
+     * 결과를 한번에 List 로 올리지 않고 스트림으로 흘려보낸다. (스크롤 결과셋)
+     * 트랜잭션 안에서 사용하고, 다 쓰고 나면 반드시 close 해야 커넥션/결과셋이 정리된다.
+     *
+     * @param fetchSize 드라이버가 한번에 가져오는 row 수 (mysql 은 useCursorFetch=true 일 때만 적용된다)
+     */
+    public Stream<MemberTeamDto> stream(MemberSearchCondition condition, int fetchSize) {
+        CompiledQuery compiled = compiled(contentQueries, condition.shape(), PROJECTION, false, false);
+
+        return compiled.bind(em.createQuery(compiled.jpql(), Object[].class), condition)
+                .setHint(HibernateHints.HINT_FETCH_SIZE, fetchSize)
+                .setHint(HibernateHints.HINT_READ_ONLY, true)
+                .getResultStream()
+                .map(PROJECTION::newInstance);
+    }
+
+    public long count(MemberSearchCondition condition) {
+        CompiledQuery compiled = compiled(countQueries, condition.shape(), COUNT, false, false);
+        return compiled.bind(em.createQuery(compiled.jpql(), Long.class), condition).getSingleResult();
+    }
+
+    /**
+     * @param entityManager 지정한 EntityManager(커넥션)로 count 를 실행한다.
+     * @param timeoutMillis DB 쿼리 timeout (넘으면 QueryTimeoutException)
+     */
+    public long count(MemberSearchCondition condition, EntityManager entityManager, long timeoutMillis) {
+        CompiledQuery compiled = compiled(countQueries, condition.shape(), COUNT, false, false);
+        return compiled.bind(entityManager.createQuery(compiled.jpql(), Long.class), condition)
+                .setHint(SpecHints.HINT_SPEC_QUERY_TIMEOUT, timeoutMillis)
+                .getSingleResult();
+    }
+
+    public long countJoinFree(MemberSearchCondition condition) {
+        CompiledQuery compiled = compiled(joinFreeCountQueries, condition.shape(), COUNT, true, false);
+        return compiled.bind(em.createQuery(compiled.jpql(), Long.class), condition).getSingleResult();
+    }
+
+    private CompiledQuery compiled(AtomicReferenceArray<CompiledQuery> cache, int shape, Expression<?> select,
+                                   boolean joinFree, boolean ordered) {
+        CompiledQuery compiled = cache.get(shape);
+        if (compiled == null) {
+            // 동시에 처음 들어오면 두번 직렬화 될 수 있지만 결과는 같으니 먼저 들어간 것을 쓴다.
+            cache.compareAndSet(shape, null, compile(shape, select, joinFree, ordered));
+            compiled = cache.get(shape);
+        }
+        return compiled;
+    }
+
+    /**
+     * shape 에 해당하는 조건만 Param 으로 넣어서 JPQL 로 직렬화 한다.
+     *
+     * count 쿼리는 조건에 필요한 것만 붙인다.
+     * member -> team 은 ManyToOne 이라 조인을 해도 row 수가 늘지 않는다.
+     * 그래서 team 조건이 없으면 조인 자체를 빼고, 있으면 inner join 으로 충분하다.
+     * select 도 엔티티 전체가 아니라 count(member.id) 만 가져온다. (fetchCount, fetchResults 는 deprecated)
+     *
+     * 컨텐츠 쿼리도 team.name 조건이 있으면 어차피 team 이 없는 member 는 걸러지니 inner join 으로 바꾼다.
+     * left join 은 DB 가 조인 순서를 바꾸지 못해서 member 를 전부 읽게 되지만,
+     * inner join 이면 team(name 인덱스) -> member(team_id, age 인덱스) 순서로 읽을 수 있다.
+     *
+     * joinFree 면 team 을 아예 조인하지 않고 member.team_name (team_name, age 인덱스) 으로 거른다.
+     * id 쿼리도 team 컬럼을 읽지 않으니 count 와 같이 조건에 필요한 조인만 붙인다.
+     *
+     * ordered 면 member.id 로 정렬한다. (offset 페이징 - 컨텐츠 / id 쿼리 모두 같은 순서)
+     */
+    private CompiledQuery compile(int shape, Expression<?> select, boolean joinFree, boolean ordered) {
+        boolean teamColumns = select == PROJECTION;
+        JPAQuery<?> query = new JPAQuery<>(em, TEMPLATES)
+                .select(select)
+                .from(member);
+        if (!joinFree) {
+            if ((shape & TEAM_NAME) != 0) {
+                query.join(member.team, team);
+            } else if (teamColumns) {
+                query.leftJoin(member.team, team);
+            }
+        }
+        query.where(
+                (shape & USERNAME) != 0 ? member.username.eq(USERNAME_PARAM) : null,
+                (shape & TEAM_NAME) == 0 ? null
+                        : joinFree ? member.teamName.eq(TEAM_NAME_PARAM) : team.name.eq(TEAM_NAME_PARAM),
+                (shape & AGE_GOE) != 0 ? member.age.goe(AGE_GOE_PARAM) : null,
+                (shape & AGE_LOE) != 0 ? member.age.loe(AGE_LOE_PARAM) : null
+        );
+        if (ordered) {
+            query.orderBy(member.id.asc());
+        }
+
+        JPQLSerializer serializer = new JPQLSerializer(TEMPLATES, em);
+        serializer.serialize(query.getMetadata(), false, null);
+        return new CompiledQuery(serializer.toString(), List.copyOf(serializer.getConstants()));
+    }
+
+    /**
+     * @param constants 바인딩 순서(?1, ?2 ...)대로 나열된 Param
+     */
+    private record CompiledQuery(String jpql, List<Object> constants) {
+
+        <T> TypedQuery<T> bind(TypedQuery<T> query, MemberSearchCondition condition) {
+            for (int i = 0; i < constants.size(); i++) {
+                Object constant = constants.get(i);
+                query.setParameter(i + 1, constant instanceof Param<?> param ? valueOf(param, condition) : constant);
+            }
+            return query;
+        }
+
+        private static Object valueOf(Param<?> param, MemberSearchCondition condition) {
+            if (param == USERNAME_PARAM) return condition.getUsername();
+            if (param == TEAM_NAME_PARAM) return condition.getTeamName();
+            if (param == AGE_GOE_PARAM) return condition.getAgeGoe();
+            if (param == AGE_LOE_PARAM) return condition.getAgeLoe();
+            throw new IllegalStateException("unknown param: " + param);
+        }
+    }
+}
@@ -0,0 +1,108 @@
+package com.example.querydsl.repository;
+
+import com.example.querydsl.dto.MemberSearchCondition;
+import jakarta.annotation.PreDestroy;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.EntityManagerFactory;
+import jakarta.persistence.QueryTimeoutException;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.task.TaskRejectedException;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+import org.springframework.stereotype.Component;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+/**
+ * count 쿼리를 별도 EntityManager(= 별도 커넥션)로 미리 시작해 둔다.
+ *
+ * 컨텐츠 쿼리와 count 쿼리가 동시에 돌기 때문에 페이지 응답 시간이 (컨텐츠 + count) 에서 max(컨텐츠, count) 가 된다.
+ * 대신 요청 하나가 커넥션을 두개 쓰고, count 는 호출한 쪽 트랜잭션 밖에서 실행된다.
+ * (같은 트랜잭션에서 아직 커밋 안 한 변경은 count 에 안 보인다.)
+ *
+ * 커넥션 풀 크기 주의
+ * - 요청 스레드가 커넥션을 잡은 채로 count 결과를 기다리기 때문에, 같은 풀을 쓰는 동시 요청 수 + count 풀 크기(pool-size)
+ *   보다 hikari maximum-pool-size 가 작으면 서로 커넥션을 기다리다 멈출 수 있다.
+ * - 그래서 기다리는 시간은 timeout-millis 로 제한하고 (count 쿼리 자체에도 같은 query timeout 을 건다)
+ *   count 스레드 풀이 꽉 차면 호출한 스레드에서 돌리지 않고 바로 거절한다. (submit 이 TaskRejectedException)
+ * - 컨텐츠만으로 끝나는 페이지라 future 를 cancel 해도 이미 시작한 DB 쿼리는 멈추지 않는다. query timeout 까지만 돈다.
+ *
+ * count 스레드 풀은 여기서만 쓰기 때문에 bean 으로 등록하지 않고 직접 만든다.
+ * (Executor bean 이 있으면 boot 의 applicationTaskExecutor 자동 설정이 빠져서 MVC 비동기 처리 등이 기본 executor 를 잃는다)
+ * 크기가 정해져 있어야 커넥션 풀을 다 잡아먹지 않는다. (pool-size 는 hikari maximum-pool-size 보다 충분히 작게)
+ * 큐까지 꽉 차면 바로 거절한다. (기본 AbortPolicy -> TaskRejectedException)
+ * 요청 스레드에서 대신 실행하면 커넥션을 하나 더 잡은 채로 컨텐츠 쿼리 전에 count 를 순차 실행하게 된다.
+ */
+@Component
+public class ParallelCountQuery {
+
+    private final EntityManagerFactory emf;
+    private final MemberSearchQueryCache queryCache;
+    private final ThreadPoolTaskExecutor executor;
+    private final boolean enabled;
+    private final long timeoutMillis;
+
+    public ParallelCountQuery(EntityManagerFactory emf,
+                              MemberSearchQueryCache queryCache,
+                              @Value("${member.search.parallel-count.enabled:false}") boolean enabled,
+                              @Value("${member.search.parallel-count.timeout-millis:3000}") long timeoutMillis,
+                              @Value("${member.search.parallel-count.pool-size:8}") int poolSize,
+                              @Value("${member.search.parallel-count.queue-capacity:100}") int queueCapacity) {
+        this.emf = emf;
+        this.queryCache = queryCache;
+        this.enabled = enabled;
+        this.timeoutMillis = timeoutMillis;
+
+        this.executor = new ThreadPoolTaskExecutor();
+        executor.setCorePoolSize(poolSize);
+        executor.setMaxPoolSize(poolSize);
+        executor.setQueueCapacity(queueCapacity);
+        executor.setThreadNamePrefix("count-query-");
+        executor.setWaitForTasksToCompleteOnShutdown(true);
+        executor.initialize();
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        executor.shutdown();
+    }
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    /**
+     * @return timeout-millis 안에 끝나지 않으면 TimeoutException 으로 끝나는 future
+     * @throws TaskRejectedException count 스레드 풀 / 큐가 꽉 찬 경우
+     */
+    public CompletableFuture<Long> submit(MemberSearchCondition condition) {
+        return CompletableFuture.supplyAsync(() -> {
+            EntityManager em = emf.createEntityManager();
+            try {
+                return queryCache.count(condition, em, timeoutMillis);
+            } finally {
+                em.close();
+            }
+        }, executor).orTimeout(timeoutMillis, TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * count 쿼리에서 난 예외는 CompletionException 을 벗겨서 그대로 던진다.
+     * 기다리다 시간이 다 되면 QueryTimeoutException
+     */
+    public static long join(CompletableFuture<Long> total) {
+        try {
+            return total.join();
+        } catch (CompletionException e) {
+            if (e.getCause() instanceof TimeoutException) {
+                throw new QueryTimeoutException("parallel count timed out", e.getCause());
+            }
+            if (e.getCause() instanceof RuntimeException cause) {
+                throw cause;
+            }
+            throw e;
+        }
+    }
+}
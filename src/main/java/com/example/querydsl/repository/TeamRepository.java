@@ -0,0 +1,21 @@
+package com.example.querydsl.repository;
+
+import com.example.querydsl.domain.Team;
+import jakarta.persistence.QueryHint;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.QueryHints;
+
+import java.util.List;
+
+import static org.hibernate.jpa.HibernateHints.HINT_CACHEABLE;
+import static org.hibernate.jpa.HibernateHints.HINT_CACHE_REGION;
+
+public interface TeamRepository extends JpaRepository<Team, Long> {
+
+    // 쿼리 캐시 - team 테이블에 쓰기가 일어나면 hibernate 가 알아서 무효화 한다.
+    @QueryHints({
+            @QueryHint(name = HINT_CACHEABLE, value = "true"),
+            @QueryHint(name = HINT_CACHE_REGION, value = "team-by-name")
+    })
+    List<Team> findByName(String name);
+}
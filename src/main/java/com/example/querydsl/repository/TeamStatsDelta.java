@@ -0,0 +1,87 @@
+package com.example.querydsl.repository;
+
+import com.example.querydsl.domain.TeamStats;
+import org.hibernate.dialect.Dialect;
+import org.hibernate.dialect.H2Dialect;
+import org.hibernate.dialect.MySQLDialect;
+import org.hibernate.engine.spi.SharedSessionContractImplementor;
+
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * 한 트랜잭션(또는 벌크 chunk) 동안 모인 팀별 집계 변화량 (member 수, 나이 합계)
+ *
+ * apply 는 팀마다 upsert 로 수 / 합계를 더하고 (row 락으로 원자적으로 더해져서 동시 트랜잭션끼리 안 덮어쓴다)
+ * 최소 / 최대 나이는 member(team_id, age) 인덱스로 다시 읽는다. (인덱스 양 끝 한번씩이라 팀 크기와 상관없이 싸다)
+ *
+ * upsert 는 MySQL 전용 문법(on duplicate key update)이다. MySQL(MariaDB) 과 MySQL 모드 H2(벤치마크) 에서만 돌고,
+ * 다른 DB 로 옮기면 apply 가 바로 실패한다. (그 DB 의 merge / on conflict 문으로 바꿔야 함)
+ */
+public class TeamStatsDelta {
+
+    private static final String UPSERT_SQL =
+            "insert into team_stats (team_id, member_count, age_sum) values (?1, ?2, ?3)" +
+            " on duplicate key update member_count = member_count + ?2, age_sum = age_sum + ?3";
+
+    private static final String REFRESH_MIN_MAX_SQL =
+            "update team_stats" +
+            " set min_age = (select min(m.age) from member m where m.team_id = ?1)," +
+            " max_age = (select max(m.age) from member m where m.team_id = ?1)" +
+            " where team_id = ?1";
+
+    // teamId -> {member 수, 나이 합계}
+    private final Map<Long, long[]> deltas = new HashMap<>();
+
+    public void add(Long teamId, int age) {
+        change(teamId, 1, age);
+    }
+
+    public void remove(Long teamId, int age) {
+        change(teamId, -1, -age);
+    }
+
+    public void change(Long teamId, long count, long ageSum) {
+        if (teamId == null) {
+            return; // 팀 없는 member 는 집계 대상이 아니다.
+        }
+        long[] delta = deltas.computeIfAbsent(teamId, id -> new long[2]);
+        delta[0] += count;
+        delta[1] += ageSum;
+    }
+
+    public boolean isEmpty() {
+        return deltas.isEmpty();
+    }
+
+    /**
+     * 현재 트랜잭션에서 team_stats 에 반영한다.
+     * 네이티브 SQL 은 TeamStats 만 건드린다고 알려줘야 2차 캐시 전체가 무효화되지 않는다.
+     */
+    public void apply(SharedSessionContractImplementor session) {
+        Dialect dialect = session.getJdbcServices().getDialect();
+        if (!(dialect instanceof MySQLDialect) && !(dialect instanceof H2Dialect)) {
+            throw new IllegalStateException("team_stats upsert requires MySQL, not " + dialect.getClass().getSimpleName());
+        }
+        for (Map.Entry<Long, long[]> entry : deltas.entrySet()) {
+            Long teamId = entry.getKey();
+            long[] delta = entry.getValue();
+            if (delta[0] == 0 && delta[1] == 0) {
+                // 변화 없음 (벌크 update 가 나이 / 팀을 안 건드린 경우 등)
+                // 합계가 그대로인 채로 최소 / 최대만 바뀌는 드문 경우는 정합성 작업이 맞춘다.
+                continue;
+            }
+            session.createNativeQuery(UPSERT_SQL)
+                    .addSynchronizedEntityClass(TeamStats.class)
+                    .setParameter(1, teamId)
+                    .setParameter(2, delta[0])
+                    .setParameter(3, delta[1])
+                    .executeUpdate();
+            session.createNativeQuery(REFRESH_MIN_MAX_SQL)
+                    .addSynchronizedEntityClass(TeamStats.class)
+                    .setParameter(1, teamId)
+                    .executeUpdate();
+        }
+        deltas.clear();
+    }
+}
@@ -0,0 +1,43 @@
+package com.example.querydsl.repository;
+
+import com.example.querydsl.dto.QTeamStatsDto;
+import com.example.querydsl.dto.TeamStatsDto;
+import com.querydsl.jpa.impl.JPAQueryFactory;
+import jakarta.persistence.EntityManager;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.List;
+
+import static com.example.querydsl.domain.QTeam.team;
+import static com.example.querydsl.domain.QTeamStats.teamStats;
+
+/**
+ * 팀별 나이 집계 조회 - member 를 groupBy 하지 않고 미리 계산된 team_stats 를 읽는다. (팀 수 만큼만 읽음)
+ */
+@Repository
+@Transactional(readOnly = true)
+public class TeamStatsQueryRepository {
+
+    private final JPAQueryFactory queryFactory;
+
+    public TeamStatsQueryRepository(EntityManager em) {
+        this.queryFactory = new JPAQueryFactory(em);
+    }
+
+    public List<TeamStatsDto> findAll() {
+        return queryFactory
+                .select(new QTeamStatsDto(
+                        teamStats.teamId,
+                        team.name,
+                        teamStats.memberCount,
+                        teamStats.ageSum,
+                        teamStats.minAge,
+                        teamStats.maxAge
+                ))
+                .from(teamStats)
+                .join(team).on(team.id.eq(teamStats.teamId)) // 연관관계 없는 조인
+                .orderBy(team.name.asc())
+                .fetch();
+    }
+}
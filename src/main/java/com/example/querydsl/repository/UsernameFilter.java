@@ -0,0 +1,388 @@
+package com.example.querydsl.repository;
+
+import com.example.querydsl.domain.Member;
+import com.example.querydsl.support.BloomFilter;
+import com.example.querydsl.support.CollationKey;
+import com.example.querydsl.support.QueryCountInspector;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.EntityManagerFactory;
+import lombok.extern.slf4j.Slf4j;
+import org.hibernate.action.spi.AfterTransactionCompletionProcess;
+import org.hibernate.engine.spi.EntityEntry;
+import org.hibernate.engine.spi.PersistenceContext;
+import org.hibernate.engine.spi.SessionFactoryImplementor;
+import org.hibernate.engine.spi.SharedSessionContractImplementor;
+import org.hibernate.event.service.spi.EventListenerRegistry;
+import org.hibernate.event.spi.EventSource;
+import org.hibernate.event.spi.EventType;
+import org.hibernate.event.spi.PersistContext;
+import org.hibernate.event.spi.PersistEvent;
+import org.hibernate.event.spi.PersistEventListener;
+import org.hibernate.event.spi.PostDeleteEvent;
+import org.hibernate.event.spi.PostDeleteEventListener;
+import org.hibernate.event.spi.PostInsertEvent;
+import org.hibernate.event.spi.PostInsertEventListener;
+import org.hibernate.event.spi.PostUpdateEvent;
+import org.hibernate.event.spi.PostUpdateEventListener;
+import org.hibernate.jpa.HibernateHints;
+import org.hibernate.persister.entity.EntityPersister;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.orm.jpa.EntityManagerHolder;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.stream.Stream;
+
+/**
+ * 전체 username 에 대한 Bloom filter - 가입 시 아이디 중복 확인처럼 대부분 "없는" 이름을 찾는 조회를 DB 까지 안 보낸다.
+ *
+ * - 시작할 때 / member.username-filter.rebuild-cron 마다 username 을 스트리밍으로 읽어서 백그라운드로 새로 만든다.
+ *   (삭제 / 이름 변경으로 안 쓰는 비트는 지울 수 없어서 주기적으로 다시 만든다)
+ * - persist / 이름 변경 이벤트가 오면 바로 넣고 (같은 트랜잭션의 조회용), 커밋 후 한번 더 넣는다.
+ *   다시 만드는 도중 커밋된 이름은 읽는 스냅샷에 없을 수 있어서 모아 두었다가 바꿔 끼우기 전에 새 필터에 다시 넣는다.
+ * - 키는 DB collation 처럼 대소문자 / 악센트를 무시한다. (CollationKey, "MEMBER1" 도 member1 로 찾는다)
+ * - 아래 경우에는 check 가 UNCHECKED (= DB 조회)
+ *   아직 안 만들어졌을 때, 만든 뒤로 username 을 바꾸는 member 벌크 update / insert ... select 가 있었을 때
+ *   (이벤트가 없어서 새 이름을 모름, member.username-filter.stale-rebuild-cron 주기로 다시 만든다),
+ *   현재 트랜잭션에 flush 안 된 이름 변경이 있을 때 (이름 변경은 flush 때 이벤트가 나온다),
+ *   collation 과 같게 비교한다고 장담할 수 없는 이름일 때
+ *
+ * 이 애플리케이션 하나가 hibernate 로만 member 를 쓴다고 가정한다. (single writer)
+ * native insert / JdbcTemplate / 다른 인스턴스가 넣은 이름은 이벤트가 없어서 모른다.
+ * 그래서 stale-rebuild-cron 마다 select count 를 만들 때의 수 + 그 뒤로 커밋된 insert / delete 와 비교해서 다르면 다시 만든다.
+ * (row 수가 그대로인 밖의 이름 변경은 이걸로도 못 잡는다. 그런 writer 가 있으면 이 필터를 끄고 쓴다)
+ *
+ * 지표: member.username.filter.fpp (예상 오탐률), .bytes (메모리), .insertions,
+ *      member.username.filter.checks{result=miss|pass} , member.username.filter.false.positives (통과했는데 DB 에 없던 수)
+ */
+@Slf4j
+@Component
+public class UsernameFilter implements PersistEventListener, PostInsertEventListener, PostUpdateEventListener, PostDeleteEventListener {
+
+    public enum Check {
+        /** 확실히 없다. */
+        ABSENT,
+        /** 필터를 통과했다. (있을 수도, 오탐일 수도) */
+        MAYBE,
+        /** 필터를 쓸 수 없어서 확인 못 했다. */
+        UNCHECKED;
+
+        public boolean mightContain() {
+            return this != ABSENT;
+        }
+    }
+
+    private final EntityManagerFactory emf;
+    private final EntityManager em;
+    private final TransactionTemplate transactionTemplate;
+    private final MeterRegistry registry;
+    private final boolean enabled;
+    private final double fpp;
+    private final int fetchSize;
+
+    private volatile BloomFilter filter;
+    private volatile BloomFilter building;
+    // rebuild 중에 커밋된 이름 (바꿔 끼우기 전에 새 필터에 다시 넣는다)
+    private volatile Set<String> committedDuringRebuild;
+    private volatile long usernameMutationsAtBuild;
+    // 만들 때 읽은 member 수 / 그 뒤로 hibernate 로 커밋된 insert - delete 수
+    private volatile long membersAtBuild;
+    private final AtomicLong memberDelta = new AtomicLong();
+
+    private final Map<SharedSessionContractImplementor, Pending> committing = new ConcurrentHashMap<>();
+
+    private Counter misses;
+    private Counter passes;
+    private Counter falsePositives;
+
+    public UsernameFilter(EntityManagerFactory emf,
+                          EntityManager em,
+                          TransactionTemplate transactionTemplate,
+                          MeterRegistry registry,
+                          @Value("${member.username-filter.enabled:true}") boolean enabled,
+                          @Value("${member.username-filter.fpp:0.01}") double fpp,
+                          @Value("${member.username-filter.fetch-size:1000}") int fetchSize) {
+        this.emf = emf;
+        this.em = em;
+        this.transactionTemplate = transactionTemplate;
+        this.registry = registry;
+        this.enabled = enabled;
+        this.fpp = fpp;
+        this.fetchSize = fetchSize;
+    }
+
+    @PostConstruct
+    public void register() {
+        EventListenerRegistry listeners = emf.unwrap(SessionFactoryImplementor.class)
+                .getServiceRegistry()
+                .getService(EventListenerRegistry.class);
+        listeners.appendListeners(EventType.PERSIST, this);
+        listeners.appendListeners(EventType.POST_INSERT, this);
+        listeners.appendListeners(EventType.POST_UPDATE, this);
+        listeners.appendListeners(EventType.POST_DELETE, this);
+
+        misses = registry.counter("member.username.filter.checks", "result", "miss");
+        passes = registry.counter("member.username.filter.checks", "result", "pass");
+        falsePositives = registry.counter("member.username.filter.false.positives");
+        Gauge.builder("member.username.filter.fpp", this, f -> f.filter == null ? Double.NaN : f.filter.expectedFpp())
+                .register(registry);
+        Gauge.builder("member.username.filter.bytes", this, f -> f.filter == null ? 0 : f.filter.byteSize())
+                .baseUnit("bytes")
+                .register(registry);
+        Gauge.builder("member.username.filter.insertions", this, f -> f.filter == null ? 0 : f.filter.insertions())
+                .register(registry);
+    }
+
+    /**
+     * @return false 면 그 username 의 member 는 확실히 없다.
+     */
+    public boolean mightContain(String username) {
+        return check(username).mightContain();
+    }
+
+    public Check check(String username) {
+        BloomFilter current = filter;
+        if (current == null || username == null || isStale()) {
+            return Check.UNCHECKED;
+        }
+        String key = CollationKey.of(username);
+        if (!CollationKey.exact(key) || hasUnflushedRename()) {
+            return Check.UNCHECKED;
+        }
+        if (current.mightContain(key)) {
+            passes.increment();
+            return Check.MAYBE;
+        }
+        misses.increment();
+        return Check.ABSENT;
+    }
+
+    /**
+     * 조회 결과를 알려준다. 필터가 MAYBE 라고 했는데 없었던 것만 오탐으로 센다. (실제 오탐률 지표)
+     */
+    public void recordLookup(Check check, boolean found) {
+        if (check == Check.MAYBE && !found) {
+            falsePositives.increment();
+        }
+    }
+
+    private boolean isStale() {
+        return usernameMutationsAtBuild != QueryCountInspector.memberUsernameMutations();
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void buildInBackground() {
+        if (enabled) {
+            Thread thread = new Thread(this::rebuild, "username-filter-rebuild");
+            thread.setDaemon(true);
+            thread.start();
+        }
+    }
+
+    @Scheduled(cron = "${member.username-filter.rebuild-cron:0 30 3 * * *}")
+    public void scheduledRebuild() {
+        if (enabled) {
+            rebuild();
+        }
+    }
+
+    /**
+     * 벌크 연산이나 hibernate 밖의 insert / delete 로 못 쓰게 된 필터를 다음 정기 rebuild 까지 두지 않고 바로 다시 만든다.
+     */
+    @Scheduled(cron = "${member.username-filter.stale-rebuild-cron:0 * * * * *}")
+    public synchronized void rebuildIfStale() {
+        if (enabled && filter != null && (isStale() || !matchesMemberCount())) {
+            rebuild();
+        }
+    }
+
+    /**
+     * 세는 동안 커밋이 있었으면 비교할 수 없으니 맞는 것으로 보고 다음 주기에 다시 본다.
+     */
+    private boolean matchesMemberCount() {
+        long deltaBefore = memberDelta.get();
+        long members = transactionTemplate.execute(status -> countMembers());
+        if (memberDelta.get() != deltaBefore || members == membersAtBuild + deltaBefore) {
+            return true;
+        }
+        log.warn("username filter built from {} members (+{} since) but member table has {}, rebuilding",
+                membersAtBuild, deltaBefore, members);
+        return false;
+    }
+
+    /**
+     * username 을 fetchSize 씩 스트리밍으로 읽어서 새 필터를 만들고 바꿔 끼운다.
+     * 크기는 현재 member 수의 2배 기준 (다음 rebuild 까지 늘어날 몫)
+     */
+    public synchronized void rebuild() {
+        long start = System.nanoTime();
+        // 읽기 전에 기록해 둬야 읽는 도중의 벌크 연산도 stale 로 잡힌다.
+        long usernameMutations = QueryCountInspector.memberUsernameMutations();
+        // 트랜잭션이 스냅샷을 잡기 (첫 select) 전에 열어 둬야 스냅샷 뒤에 커밋된 이름이 빠짐없이 모인다.
+        // 스냅샷 전 커밋이 같이 세어지면 다음 count 비교에서 한번 더 만들 뿐이다.
+        Set<String> replay = ConcurrentHashMap.newKeySet();
+        committedDuringRebuild = replay;
+        memberDelta.set(0);
+        try {
+            long[] members = new long[1];
+            BloomFilter rebuilt = transactionTemplate.execute(status -> {
+                members[0] = countMembers();
+                BloomFilter next = BloomFilter.create(members[0] * 2, fpp);
+                building = next; // 읽는 동안 들어오는 이벤트도 새 필터에 넣는다.
+                try (Stream<String> usernames = em.createQuery("select m.username from Member m", String.class)
+                        .setHint(HibernateHints.HINT_FETCH_SIZE, fetchSize)
+                        .setHint(HibernateHints.HINT_READ_ONLY, true)
+                        .getResultStream()) {
+                    usernames.forEach(username -> {
+                        if (username != null) {
+                            next.put(CollationKey.of(username));
+                        }
+                    });
+                }
+                return next;
+            });
+
+            // building 을 세팅하기 전에 커밋된 이름은 옛 필터에만 들어갔다. (이후 것은 building 에도 들어감)
+            replay.forEach(rebuilt::put);
+            filter = rebuilt;
+            membersAtBuild = members[0];
+            usernameMutationsAtBuild = usernameMutations;
+            log.info("username filter rebuilt: {} names ({} committed during rebuild), {} bytes, {} hashes, expected fpp {} ({} ms)",
+                    rebuilt.insertions(), replay.size(), rebuilt.byteSize(), rebuilt.hashCount(), rebuilt.expectedFpp(),
+                    (System.nanoTime() - start) / 1_000_000);
+        } finally {
+            building = null;
+            committedDuringRebuild = null;
+        }
+    }
+
+    // 트랜잭션의 첫 조회 (REPEATABLE READ 스냅샷이 여기서 잡힌다)
+    long countMembers() {
+        return em.createQuery("select count(m) from Member m", Long.class).getSingleResult();
+    }
+
+    @Override
+    public void onPersist(PersistEvent event) {
+        if (event.getObject() instanceof Member member) {
+            add(event.getSession(), member.getUsername());
+        }
+    }
+
+    @Override
+    public void onPersist(PersistEvent event, PersistContext createdAlready) {
+        onPersist(event);
+    }
+
+    @Override
+    public void onPostUpdate(PostUpdateEvent event) {
+        if (event.getEntity() instanceof Member member) {
+            add(event.getSession(), member.getUsername());
+        }
+    }
+
+    @Override
+    public void onPostInsert(PostInsertEvent event) {
+        // 이름은 persist 때 넣었다. 같은 엔티티에 persist 가 여러번 올 수 있어서 수는 insert 로 센다.
+        if (event.getEntity() instanceof Member) {
+            pending(event.getSession()).members++;
+        }
+    }
+
+    @Override
+    public void onPostDelete(PostDeleteEvent event) {
+        if (event.getEntity() instanceof Member) {
+            // 필터에서 지울 수는 없고 (다음 rebuild 까지 오탐으로 남는다) count 비교용으로만 센다.
+            pending(event.getSession()).members--;
+        }
+    }
+
+    @Override
+    public boolean requiresPostCommitHandling(EntityPersister persister) {
+        return false;
+    }
+
+    private void add(EventSource session, String username) {
+        if (username == null) {
+            return;
+        }
+        String key = CollationKey.of(username);
+        put(key);
+        pending(session).usernames.add(key);
+    }
+
+    private Pending pending(EventSource session) {
+        return committing.computeIfAbsent(session, s -> {
+            session.getActionQueue().registerProcess((AfterTransactionCompletionProcess) (success, completed) -> {
+                Pending pending = committing.remove(completed);
+                if (success && pending != null) {
+                    Set<String> replay = committedDuringRebuild;
+                    if (replay != null) {
+                        replay.addAll(pending.usernames);
+                    }
+                    pending.usernames.forEach(this::put);
+                    memberDelta.addAndGet(pending.members);
+                }
+            });
+            return new Pending();
+        });
+    }
+
+    private void put(String key) {
+        // building 을 먼저 읽는다. rebuild 는 filter 를 바꾼 다음 building 을 비우기 때문에
+        // building 이 비어 있으면 filter 는 이미 새 필터이거나, building 을 세팅하기 전이라 커밋 후 이름이 replay 로 넘어간다.
+        BloomFilter next = building;
+        BloomFilter current = filter;
+        if (next != null) {
+            next.put(key);
+        }
+        if (current != null && current != next) {
+            current.put(key);
+        }
+    }
+
+    /**
+     * 영속성 컨텍스트의 Member 중 로딩 이후 username 이 바뀐 것이 있는지 (Session.isDirty() 처럼 전체 dirty check 를 하지 않는다)
+     */
+    private boolean hasUnflushedRename() {
+        EntityManagerHolder holder = (EntityManagerHolder) TransactionSynchronizationManager.getResource(emf);
+        if (holder == null) {
+            return false;
+        }
+        PersistenceContext context = holder.getEntityManager()
+                .unwrap(SharedSessionContractImplementor.class)
+                .getPersistenceContextInternal();
+        if (context.getNumberOfManagedEntities() == 0) {
+            return false;
+        }
+        for (Map.Entry<Object, EntityEntry> entry : context.reentrantSafeEntityEntries()) {
+            if (entry.getKey() instanceof Member member && entry.getValue().getLoadedState() != null
+                    && !Objects.equals(member.getUsername(), entry.getValue().getLoadedValue("username"))) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * 세션(트랜잭션)별로 커밋되면 반영할 이름 / member 수 증감
+     */
+    private static class Pending {
+        final List<String> usernames = new ArrayList<>();
+        long members;
+    }
+}
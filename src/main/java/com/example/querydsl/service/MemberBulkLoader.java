@@ -0,0 +1,96 @@
+package com.example.querydsl.service;
+
+import com.example.querydsl.domain.Member;
+import com.example.querydsl.domain.Team;
+import jakarta.persistence.EntityManager;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * 대량 Team / Member 적재 (초기 데이터, 이관용)
+ *
+ * - id 는 pooled 시퀀스(allocationSize 1000) 라서 insert 마다 id 를 조회하지 않는다.
+ * - hibernate.jdbc.batch_size 만큼 모아서 batch insert (order_inserts 로 테이블별로 정렬)
+ * - batch 마다 flush / clear 해서 영속성 컨텍스트가 커지지 않게 한다.
+ * - chunk 단위로 트랜잭션을 나눠서 언두 로그 / 락이 한없이 커지지 않게 한다.
+ */
+@Slf4j
+@Service
+public class MemberBulkLoader {
+
+    private final EntityManager em;
+    private final TransactionTemplate transactionTemplate;
+    private final int batchSize;
+    private final int chunkSize;
+
+    public MemberBulkLoader(EntityManager em,
+                            TransactionTemplate transactionTemplate,
+                            @Value("${spring.jpa.properties.hibernate.jdbc.batch_size:1000}") int batchSize,
+                            @Value("${member.bulk-load.chunk-size:100000}") int chunkSize) {
+        this.em = em;
+        this.transactionTemplate = transactionTemplate;
+        this.batchSize = batchSize;
+        this.chunkSize = chunkSize;
+    }
+
+    /**
+     * team teamCount 개, member memberCount 개를 넣는다.
+     * member i 는 이름 member{i}, 나이 i % 100, 팀은 i % teamCount 번째 팀
+     *
+     * @return 넣은 member 수
+     */
+    public long seed(int teamCount, long memberCount) {
+        long start = System.nanoTime();
+        List<Long> teamIds = transactionTemplate.execute(status -> {
+            List<Long> ids = new ArrayList<>(teamCount);
+            for (int t = 0; t < teamCount; t++) {
+                Team team = new Team(teamName(t));
+                em.persist(team);
+                ids.add(team.getId());
+            }
+            return ids;
+        });
+
+        for (long from = 0; from < memberCount; from += chunkSize) {
+            long to = Math.min(from + chunkSize, memberCount);
+            insertMembers(teamIds, from, to);
+            log.info("bulk load members {}/{} ({} rows/s)", to, memberCount, rowsPerSecond(to, start));
+        }
+        return memberCount;
+    }
+
+    private void insertMembers(List<Long> teamIds, long from, long to) {
+        transactionTemplate.executeWithoutResult(status -> {
+            for (long i = from; i < to; i++) {
+                Member member = new Member("member" + i, (int) (i % 100));
+                if (!teamIds.isEmpty()) {
+                    // changeTeam 은 team.members 컬렉션을 로딩하기 때문에 FK 와 반정규화된 팀 이름만 세팅한다.
+                    int t = (int) (i % teamIds.size());
+                    member.changeTeam(em.getReference(Team.class, teamIds.get(t)), teamName(t));
+                }
+                em.persist(member);
+
+                if ((i - from + 1) % batchSize == 0) {
+                    em.flush();
+                    em.clear();
+                }
+            }
+            em.flush();
+            em.clear();
+        });
+    }
+
+    private static String teamName(int index) {
+        return index < 26 ? "team" + (char) ('A' + index) : "team" + index;
+    }
+
+    private static long rowsPerSecond(long rows, long startNanos) {
+        long elapsed = System.nanoTime() - startNanos;
+        return elapsed == 0 ? rows : rows * 1_000_000_000L / elapsed;
+    }
+}
@@ -0,0 +1,253 @@
+package com.example.querydsl.service;
+
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.EntityManagerFactory;
+import lombok.extern.slf4j.Slf4j;
+import org.hibernate.ScrollMode;
+import org.hibernate.ScrollableResults;
+import org.hibernate.Session;
+import org.hibernate.SessionFactory;
+import org.hibernate.StatelessSession;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+import java.util.function.Function;
+
+import static java.nio.file.StandardOpenOption.*;
+
+/**
+ * member + team 전체를 분석용 CSV 파일로 내보낸다.
+ *
+ * id 공간을 range-size 구간으로 나누고 fork-join 풀(parallelism)의 worker 가 구간 하나씩 맡는다.
+ * worker 마다 StatelessSession + forward-only 커서로 읽어서(영속성 컨텍스트 X) 구간별 part 파일에 쓰고,
+ * 끝나면 구간 순서대로 part 파일을 결과 파일 뒤에 이어 붙인다. (FileChannel.transferTo, 복사 없이)
+ * 결과는 member_id 순서다.
+ *
+ * StatelessSession 은 readOnly 트랜잭션이 잡은 커넥션 위에 연다. (새로 열면 worker 하나가 커넥션을 두개 잡는다)
+ * worker 하나가 커넥션 하나를 잡기 때문에 parallelism 은 커넥션 풀 크기보다 작게 잡는다.
+ */
+@Slf4j
+@Service
+public class MemberCsvExportService {
+
+    private static final byte[] HEADER = "member_id,username,age,team_id,team_name\n".getBytes(StandardCharsets.UTF_8);
+
+    private static final String ROW_QUERY =
+            "select m.id, m.username, m.age, t.id, t.name from Member m left join m.team t" +
+                    " where m.id between :from and :to order by m.id";
+
+    private final EntityManager em;
+    private final SessionFactory sessionFactory;
+    private final TransactionTemplate readOnlyTransaction;
+    private final int parallelism;
+    private final long rangeSize;
+    private final int fetchSize;
+    private final int bufferSize;
+
+    public MemberCsvExportService(EntityManager em,
+                                  EntityManagerFactory emf,
+                                  PlatformTransactionManager transactionManager,
+                                  @Value("${member.csv-export.parallelism:4}") int parallelism,
+                                  @Value("${member.csv-export.range-size:100000}") long rangeSize,
+                                  @Value("${member.csv-export.fetch-size:1000}") int fetchSize,
+                                  @Value("${member.csv-export.buffer-size:65536}") int bufferSize) {
+        this.em = em;
+        this.sessionFactory = emf.unwrap(SessionFactory.class);
+        // readOnly 트랜잭션 안에서 읽어야 replica 로 라우팅 된다.
+        this.readOnlyTransaction = new TransactionTemplate(transactionManager);
+        this.readOnlyTransaction.setReadOnly(true);
+        this.parallelism = parallelism;
+        this.rangeSize = rangeSize;
+        this.fetchSize = fetchSize;
+        this.bufferSize = bufferSize;
+    }
+
+    public record Result(long rows, long bytes, int ranges, long elapsedMillis) {
+        public long rowsPerSecond() {
+            return elapsedMillis == 0 ? rows * 1000 : rows * 1000 / elapsedMillis;
+        }
+    }
+
+    /**
+     * target 파일을 새로 만들어서 (있으면 덮어씀) 헤더 + 전체 row 를 쓴다.
+     */
+    public Result export(Path target) throws IOException {
+        long start = System.nanoTime();
+        Object[] bounds = readOnlyTransaction.execute(status -> inStatelessSession(session -> session
+                .createQuery("select min(m.id), max(m.id) from Member m", Object[].class)
+                .getSingleResult()));
+
+        List<Path> parts = new ArrayList<>();
+        List<ForkJoinTask<Long>> tasks = new ArrayList<>();
+        ForkJoinPool pool = new ForkJoinPool(parallelism);
+        long rows = 0;
+        try {
+            if (bounds[0] != null) {
+                long minId = (Long) bounds[0];
+                long maxId = (Long) bounds[1];
+                for (long from = minId; from <= maxId; from += rangeSize) {
+                    long rangeFrom = from;
+                    long rangeTo = Math.min(from + rangeSize - 1, maxId);
+                    Path part = target.resolveSibling(target.getFileName() + ".part" + parts.size());
+                    parts.add(part);
+                    tasks.add(pool.submit(() -> exportRange(rangeFrom, rangeTo, part)));
+                }
+            }
+            // 실패한 구간이 있어도 나머지 worker 가 다 끝난 다음에 part 파일을 지운다.
+            RuntimeException failure = null;
+            for (ForkJoinTask<Long> task : tasks) {
+                try {
+                    rows += task.join();
+                } catch (RuntimeException e) {
+                    if (failure == null) {
+                        failure = e;
+                    }
+                }
+            }
+            if (failure != null) {
+                throw failure;
+            }
+            long bytes = concat(target, parts);
+
+            Result result = new Result(rows, bytes, parts.size(), (System.nanoTime() - start) / 1_000_000);
+            log.info("member csv export: {} rows, {} bytes, {} ranges, {} ms ({} rows/s) -> {}",
+                    result.rows(), result.bytes(), result.ranges(), result.elapsedMillis(), result.rowsPerSecond(), target);
+            return result;
+        } finally {
+            pool.shutdown();
+            for (Path part : parts) {
+                Files.deleteIfExists(part);
+            }
+        }
+    }
+
+    private long exportRange(long from, long to, Path part) {
+        return readOnlyTransaction.execute(status -> inStatelessSession(session -> {
+            try (ScrollableResults<Object[]> rows = session.createQuery(ROW_QUERY, Object[].class)
+                         .setParameter("from", from)
+                         .setParameter("to", to)
+                         .setFetchSize(fetchSize)
+                         .scroll(ScrollMode.FORWARD_ONLY);
+                 CsvWriter out = new CsvWriter(FileChannel.open(part, CREATE, TRUNCATE_EXISTING, WRITE), bufferSize)) {
+                long count = 0;
+                while (rows.next()) {
+                    out.row(rows.get());
+                    count++;
+                }
+                return count;
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        }));
+    }
+
+    /**
+     * 현재 트랜잭션의 커넥션으로 StatelessSession 을 연다. (커넥션은 트랜잭션이 닫는다)
+     */
+    private <T> T inStatelessSession(Function<StatelessSession, T> work) {
+        return em.unwrap(Session.class).doReturningWork(connection -> {
+            try (StatelessSession session = sessionFactory.withStatelessOptions().connection(connection).openStatelessSession()) {
+                return work.apply(session);
+            }
+        });
+    }
+
+    private long concat(Path target, List<Path> parts) throws IOException {
+        try (FileChannel out = FileChannel.open(target, CREATE, TRUNCATE_EXISTING, WRITE)) {
+            out.write(ByteBuffer.wrap(HEADER));
+            for (Path part : parts) {
+                try (FileChannel in = FileChannel.open(part, READ)) {
+                    long size = in.size();
+                    long position = 0;
+                    while (position < size) {
+                        position += in.transferTo(position, size - position, out);
+                    }
+                }
+            }
+            return out.size();
+        }
+    }
+
+    /**
+     * row 를 CSV 한 줄로 만들어서 버퍼가 찰 때마다 채널에 쓴다.
+     * null 은 빈 칸, 쉼표 / 따옴표 / 줄바꿈이 있는 값만 따옴표로 감싼다.
+     */
+    static final class CsvWriter implements AutoCloseable {
+
+        private final FileChannel channel;
+        private final ByteBuffer buffer;
+        private final StringBuilder line = new StringBuilder(128);
+
+        CsvWriter(FileChannel channel, int bufferSize) {
+            this.channel = channel;
+            this.buffer = ByteBuffer.allocateDirect(bufferSize);
+        }
+
+        void row(Object[] values) throws IOException {
+            line.setLength(0);
+            for (int i = 0; i < values.length; i++) {
+                if (i > 0) {
+                    line.append(',');
+                }
+                appendValue(values[i]);
+            }
+            line.append('\n');
+
+            byte[] bytes = line.toString().getBytes(StandardCharsets.UTF_8);
+            if (bytes.length > buffer.remaining()) {
+                drain();
+            }
+            if (bytes.length > buffer.capacity()) {
+                write(ByteBuffer.wrap(bytes));
+            } else {
+                buffer.put(bytes);
+            }
+        }
+
+        private void appendValue(Object value) {
+            if (value == null) {
+                return;
+            }
+            String text = value.toString();
+            if (text.indexOf(',') < 0 && text.indexOf('"') < 0 && text.indexOf('\n') < 0 && text.indexOf('\r') < 0) {
+                line.append(text);
+                return;
+            }
+            line.append('"').append(text.replace("\"", "\"\"")).append('"');
+        }
+
+        private void drain() throws IOException {
+            buffer.flip();
+            write(buffer);
+            buffer.clear();
+        }
+
+        private void write(ByteBuffer bytes) throws IOException {
+            while (bytes.hasRemaining()) {
+                channel.write(bytes);
+            }
+        }
+
+        @Override
+        public void close() throws IOException {
+            try {
+                drain();
+            } finally {
+                channel.close();
+            }
+        }
+    }
+}
@@ -0,0 +1,67 @@
+package com.example.querydsl.service;
+
+import com.example.querydsl.dto.MemberSearchCondition;
+import com.example.querydsl.dto.MemberTeamDto;
+import com.example.querydsl.repository.MemberJpaRepository;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.Iterator;
+import java.util.stream.Stream;
+
+/**
+ * 검색 결과를 NDJSON(한 줄에 json 하나) 으로 바로 출력 스트림에 쓴다.
+ *
+ * List 로 다 올려서 직렬화 하면 결과가 큰 경우 힙이 터진다.
+ * 결과셋을 fetch-size 만큼씩 읽으면서 바로 쓰기 때문에 결과 건수와 상관없이 메모리 사용량이 일정하다.
+ * DTO 로 바로 조회 하기 때문에 영속성 컨텍스트에 엔티티가 쌓이지 않는다. (detach 할 것이 없다)
+ */
+@Service
+public class MemberExportService {
+
+    private final MemberJpaRepository memberJpaRepository;
+    private final ObjectWriter writer;
+    private final ObjectMapper objectMapper;
+    private final int fetchSize;
+
+    public MemberExportService(MemberJpaRepository memberJpaRepository,
+                               ObjectMapper objectMapper,
+                               @Value("${member.export.fetch-size:1000}") int fetchSize) {
+        this.memberJpaRepository = memberJpaRepository;
+        this.objectMapper = objectMapper;
+        // row 마다 flush 하지 않고 JsonGenerator 버퍼가 찼을 때 내보낸다.
+        this.writer = objectMapper.writerFor(MemberTeamDto.class)
+                .without(SerializationFeature.FLUSH_AFTER_WRITE_VALUE);
+        this.fetchSize = fetchSize;
+    }
+
+    /**
+     * @return 출력한 row 수
+     */
+    @Transactional(readOnly = true)
+    public long exportNdjson(MemberSearchCondition condition, OutputStream out) throws IOException {
+        long rows = 0;
+        try (Stream<MemberTeamDto> stream = memberJpaRepository.searchStream(condition, fetchSize);
+             JsonGenerator generator = objectMapper.getFactory().createGenerator(out)) {
+            generator.disable(JsonGenerator.Feature.AUTO_CLOSE_TARGET); // 응답 스트림은 컨테이너가 닫는다.
+            generator.setRootValueSeparator(null);
+
+            Iterator<MemberTeamDto> iterator = stream.iterator();
+            while (iterator.hasNext()) {
+                writer.writeValue(generator, iterator.next());
+                generator.writeRaw('\n');
+                if (++rows % fetchSize == 0) {
+                    generator.flush(); // 한 번 fetch 한 만큼씩 클라이언트로 흘려보낸다.
+                }
+            }
+        }
+        return rows;
+    }
+}
@@ -0,0 +1,87 @@
+package com.example.querydsl.service;
+
+import com.example.querydsl.dto.MemberSearchCondition;
+import com.example.querydsl.dto.MemberTeamDto;
+import com.example.querydsl.repository.MemberJpaRepository;
+import com.example.querydsl.repository.MemberRepository;
+import com.example.querydsl.support.SingleFlight;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Sort;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.Collections;
+import java.util.List;
+import java.util.function.Supplier;
+
+/**
+ * 같은 검색(정규화한 조건 + 페이지)이 동시에 몰리면 DB 조회를 한번만 하고 결과를 나눠 준다. (single flight)
+ *
+ * - member.search.coalesce{result=executed} : 실제로 DB 조회를 한 요청 수
+ * - member.search.coalesce{result=shared}   : 다른 요청의 조회 결과를 같이 받은 요청 수
+ *   합치기 비율 = shared / (executed + shared)
+ * - member.search.coalesce.inflight         : 지금 실행 중인 검색 종류 수
+ *
+ * 트랜잭션 안에서 부르면 합치지 않는다. (그 트랜잭션에서만 보이는 미커밋 변경이 있을 수 있다)
+ */
+@Service
+public class MemberSearchCoalescer {
+
+    private record SearchKey(String method, MemberSearchCondition condition, long offset, int size, Sort sort) {
+    }
+
+    private final MemberJpaRepository memberJpaRepository;
+    private final MemberRepository memberRepository;
+    private final boolean enabled;
+
+    private final SingleFlight<SearchKey, Object> singleFlight = new SingleFlight<>();
+    private final Counter executed;
+    private final Counter shared;
+
+    public MemberSearchCoalescer(MemberJpaRepository memberJpaRepository,
+                                 MemberRepository memberRepository,
+                                 MeterRegistry registry,
+                                 @Value("${member.search.coalesce.enabled:true}") boolean enabled) {
+        this.memberJpaRepository = memberJpaRepository;
+        this.memberRepository = memberRepository;
+        this.enabled = enabled;
+        this.executed = registry.counter("member.search.coalesce", "result", "executed");
+        this.shared = registry.counter("member.search.coalesce", "result", "shared");
+        Gauge.builder("member.search.coalesce.inflight", singleFlight, SingleFlight::inFlight)
+                .register(registry);
+    }
+
+    /**
+     * MemberJpaRepository.search (/v1)
+     */
+    public List<MemberTeamDto> search(MemberSearchCondition condition) {
+        SearchKey key = new SearchKey("search", condition.normalized(), -1, -1, Sort.unsorted());
+        // 여러 요청이 같은 List 를 받으니 바꾸지 못하게 감싼다.
+        return coalesce(key, () -> Collections.unmodifiableList(memberJpaRepository.search(condition)));
+    }
+
+    /**
+     * MemberRepository.searchPageComplex (/v3)
+     */
+    public Page<MemberTeamDto> searchPageComplex(MemberSearchCondition condition, Pageable pageable) {
+        SearchKey key = new SearchKey("searchPageComplex", condition.normalized(),
+                pageable.getOffset(), pageable.getPageSize(), pageable.getSort());
+        return coalesce(key, () -> memberRepository.searchPageComplex(condition, pageable));
+    }
+
+    @SuppressWarnings("unchecked")
+    private <T> T coalesce(SearchKey key, Supplier<T> search) {
+        if (!enabled || TransactionSynchronizationManager.isActualTransactionActive()) {
+            return search.get();
+        }
+        return (T) singleFlight.execute(key, () -> {
+            executed.increment();
+            return search.get();
+        }, shared::increment);
+    }
+}
@@ -0,0 +1,76 @@
+package com.example.querydsl.service;
+
+import com.example.querydsl.domain.Team;
+import com.example.querydsl.repository.MemberBulkRepository;
+import com.querydsl.core.types.dsl.BooleanExpression;
+import com.querydsl.core.types.dsl.Expressions;
+import jakarta.persistence.EntityManager;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import static com.example.querydsl.domain.QMember.member;
+
+/**
+ * 팀 이름 변경 + member.team_name (반정규화 컬럼) 전파
+ *
+ * team 을 먼저 커밋하고, member 쪽은 MemberBulkRepository 로 id 구간을 나눠서 반영한다.
+ * (팀 하나에 member 가 수백만이어도 한 문장으로 락을 오래 잡지 않게)
+ * 전파가 끝나기 전까지는 조인 없는 검색에서 옛 이름이 보일 수 있다.
+ * 중간에 실패해도 propagate 를 다시 돌리면 아직 안 바뀐 row 만 마저 바꾼다.
+ */
+@Slf4j
+@Service
+public class TeamRenameService {
+
+    private final EntityManager em;
+    private final TransactionTemplate transactionTemplate;
+    private final MemberBulkRepository memberBulkRepository;
+
+    public TeamRenameService(EntityManager em,
+                             TransactionTemplate transactionTemplate,
+                             MemberBulkRepository memberBulkRepository) {
+        this.em = em;
+        this.transactionTemplate = transactionTemplate;
+        this.memberBulkRepository = memberBulkRepository;
+    }
+
+    /**
+     * @return 팀 이름이 바뀐 member 수
+     */
+    public long rename(Long teamId, String name) {
+        transactionTemplate.executeWithoutResult(status -> findTeam(teamId).changeName(name));
+        return propagate(teamId);
+    }
+
+    /**
+     * team 의 현재 이름을 member.team_name 에 반영한다.
+     *
+     * @return 바뀐 member 수
+     */
+    public long propagate(Long teamId) {
+        String name = transactionTemplate.execute(status -> findTeam(teamId).getName());
+
+        // 이미 같은 이름인 row 는 건드리지 않는다. (다시 돌려도 안전)
+        // team_name 컬럼 collation 은 대소문자 / 악센트를 무시해서 ne 로 비교하면 "teamb" -> "teamB" 같은 변경이 안 넘어간다.
+        // 그래서 utf8mb4_bin 으로 바이트 비교한다.
+        BooleanExpression stale = name == null
+                ? member.teamName.isNotNull()
+                : Expressions.booleanTemplate("collate({0} as utf8mb4_bin) <> {1}", member.teamName, name)
+                        .or(member.teamName.isNull());
+
+        long updated = memberBulkRepository.update(
+                member.team.id.eq(teamId).and(stale),
+                clause -> clause.set(member.teamName, name));
+        log.info("team {} name propagated to {} members", teamId, updated);
+        return updated;
+    }
+
+    private Team findTeam(Long teamId) {
+        Team team = em.find(Team.class, teamId);
+        if (team == null) {
+            throw new IllegalArgumentException("team not found: " + teamId);
+        }
+        return team;
+    }
+}
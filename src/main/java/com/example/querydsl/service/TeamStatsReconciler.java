@@ -0,0 +1,149 @@
+package com.example.querydsl.service;
+
+import com.example.querydsl.domain.TeamStats;
+import com.querydsl.core.Tuple;
+import com.querydsl.jpa.impl.JPAQueryFactory;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.LockModeType;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.dao.DataAccessException;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.TransactionException;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+
+import static com.example.querydsl.domain.QMember.member;
+import static com.example.querydsl.domain.QTeam.team;
+import static com.example.querydsl.domain.QTeamStats.teamStats;
+
+/**
+ * team_stats 정합성 작업 - member 를 실제로 groupBy 해서 집계 테이블과 비교하고, 다르면 실제 값으로 고친다.
+ *
+ * 증분 반영이 놓치는 경우 (이전 값 없는 update, 합계가 그대로인 최소 / 최대 변경, 직접 SQL 수정 등) 를 메운다.
+ * member 전체를 읽기 때문에 한가한 시간에 돌린다. (member.team-stats.reconcile-cron)
+ *
+ * 1. 락 없이 집계 테이블과 member groupBy 를 읽어서 어긋나 보이는 팀만 고른다. (그 사이 커밋된 변경 때문에 틀릴 수 있음)
+ * 2. 고른 팀마다 짧은 트랜잭션으로 그 팀 집계 row 만 잠그고, 그 팀 member 를 다시 세서 다르면 고친다.
+ *    잠그는 동안 기다리는 건 같은 팀 member 변경의 커밋(집계 반영) 뿐이다.
+ */
+@Slf4j
+@Service
+public class TeamStatsReconciler {
+
+    private final EntityManager em;
+    private final JPAQueryFactory queryFactory;
+    private final TransactionTemplate transactionTemplate;
+
+    public TeamStatsReconciler(EntityManager em, TransactionTemplate transactionTemplate) {
+        this.em = em;
+        this.queryFactory = new JPAQueryFactory(em);
+        this.transactionTemplate = transactionTemplate;
+    }
+
+    /**
+     * 바깥 트랜잭션 없이 호출해야 팀마다 트랜잭션이 나눠진다.
+     *
+     * @return 고친 팀 수
+     */
+    @Scheduled(cron = "${member.team-stats.reconcile-cron:0 0 4 * * *}")
+    public int reconcile() {
+        Map<Long, TeamStats> stored = new HashMap<>();
+        for (TeamStats stats : queryFactory.selectFrom(teamStats).fetch()) {
+            stored.put(stats.getTeamId(), stats);
+        }
+
+        List<Tuple> actual = queryFactory
+                .select(member.team.id, member.count(), member.age.sum(), member.age.min(), member.age.max())
+                .from(member)
+                .where(member.team.isNotNull())
+                .groupBy(member.team.id)
+                .fetch();
+
+        Set<Long> suspects = new LinkedHashSet<>();
+        for (Tuple row : actual) {
+            Long teamId = row.get(0, Long.class);
+            TeamStats stats = stored.remove(teamId);
+            if (stats == null || !matches(stats, row.get(1, Long.class), row.get(2, Number.class).longValue(),
+                    row.get(3, Integer.class), row.get(4, Integer.class))) {
+                suspects.add(teamId);
+            }
+        }
+        // 남은 건 member 가 없는 팀 - 팀이 지워졌으면 집계도 지우고, 있으면 0 이어야 한다.
+        for (TeamStats stats : stored.values()) {
+            if (!matches(stats, 0, 0, null, null) || !teamExists(stats.getTeamId())) {
+                suspects.add(stats.getTeamId());
+            }
+        }
+
+        int fixed = 0;
+        for (Long teamId : suspects) {
+            try {
+                if (Boolean.TRUE.equals(transactionTemplate.execute(status -> reconcile(teamId)))) {
+                    fixed++;
+                }
+            } catch (DataAccessException | TransactionException e) {
+                // 동시에 첫 member 가 들어와서 집계 row 가 생긴 경우 등 - 다음 번에 다시 맞춘다.
+                log.warn("team stats reconcile failed for team {}", teamId, e);
+            }
+        }
+
+        log.info("team stats reconciled: {} suspects, {} teams fixed", suspects.size(), fixed);
+        return fixed;
+    }
+
+    /**
+     * 팀 하나의 집계 row 를 잠그고 실제 값과 비교해서 고친다.
+     *
+     * @return 고쳤으면 true
+     */
+    private boolean reconcile(Long teamId) {
+        TeamStats stats = em.find(TeamStats.class, teamId, LockModeType.PESSIMISTIC_WRITE);
+        Tuple row = queryFactory
+                .select(member.count(), member.age.sum(), member.age.min(), member.age.max())
+                .from(member)
+                .where(member.team.id.eq(teamId))
+                .fetchOne();
+        long count = row.get(0, Long.class);
+        long ageSum = count == 0 ? 0 : row.get(1, Number.class).longValue();
+        Integer minAge = row.get(2, Integer.class);
+        Integer maxAge = row.get(3, Integer.class);
+
+        if (count == 0 && !teamExists(teamId)) {
+            if (stats == null) {
+                return false;
+            }
+            em.remove(stats);
+            return true;
+        }
+        if (stats == null) {
+            log.warn("team stats missing for team {}", teamId);
+            em.persist(new TeamStats(teamId, count, ageSum, minAge, maxAge));
+            return true;
+        }
+        if (matches(stats, count, ageSum, minAge, maxAge)) {
+            return false; // 락 없이 읽는 사이 커밋된 변경 때문에 어긋나 보였던 것
+        }
+        log.warn("team stats mismatch for team {}: {} -> count={}, ageSum={}, min={}, max={}",
+                teamId, stats, count, ageSum, minAge, maxAge);
+        stats.reset(count, ageSum, minAge, maxAge);
+        return true;
+    }
+
+    private boolean teamExists(Long teamId) {
+        return queryFactory.selectOne().from(team).where(team.id.eq(teamId)).fetchFirst() != null;
+    }
+
+    private static boolean matches(TeamStats stats, long count, long ageSum, Integer minAge, Integer maxAge) {
+        return stats.getMemberCount() == count
+                && stats.getAgeSum() == ageSum
+                && Objects.equals(stats.getMinAge(), minAge)
+                && Objects.equals(stats.getMaxAge(), maxAge);
+    }
+}
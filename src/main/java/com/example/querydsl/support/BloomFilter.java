@@ -0,0 +1,99 @@
+package com.example.querydsl.support;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * 문자열 Bloom filter - mightContain 이 false 면 확실히 없는 값이다. (true 는 "있을 수도")
+ *
+ * 비트 배열은 AtomicLongArray 라서 여러 스레드가 동시에 put 해도 된다. (제거는 불가 - 다시 만들어야 한다)
+ * 해시는 64bit 해시 하나로 두 값을 만들어 k 개 위치를 뽑는다. (double hashing)
+ */
+public class BloomFilter {
+
+    private final AtomicLongArray words;
+    private final long bitSize;
+    private final int hashCount;
+    private final AtomicLong bitCount = new AtomicLong();
+    private final AtomicLong insertions = new AtomicLong();
+
+    private BloomFilter(long bitSize, int hashCount) {
+        this.words = new AtomicLongArray(Math.toIntExact((bitSize + 63) / 64));
+        this.bitSize = bitSize;
+        this.hashCount = hashCount;
+    }
+
+    /**
+     * expectedInsertions 개를 넣었을 때 오탐률이 fpp 가 되는 크기로 만든다.
+     */
+    public static BloomFilter create(long expectedInsertions, double fpp) {
+        long n = Math.max(expectedInsertions, 1);
+        long bits = Math.max(64, (long) Math.ceil(-n * Math.log(fpp) / (Math.log(2) * Math.log(2))));
+        int hashes = Math.max(1, (int) Math.round((double) bits / n * Math.log(2)));
+        return new BloomFilter(bits, hashes);
+    }
+
+    public void put(String value) {
+        long hash1 = hash(value);
+        long hash2 = mix(hash1 ^ 0x9E3779B97F4A7C15L) | 1;
+        for (int i = 0; i < hashCount; i++) {
+            long bit = Math.floorMod(hash1 + i * hash2, bitSize);
+            long mask = 1L << bit;
+            long old = words.getAndAccumulate((int) (bit >>> 6), mask, (a, b) -> a | b);
+            if ((old & mask) == 0) {
+                bitCount.incrementAndGet();
+            }
+        }
+        insertions.incrementAndGet();
+    }
+
+    public boolean mightContain(String value) {
+        long hash1 = hash(value);
+        long hash2 = mix(hash1 ^ 0x9E3779B97F4A7C15L) | 1;
+        for (int i = 0; i < hashCount; i++) {
+            long bit = Math.floorMod(hash1 + i * hash2, bitSize);
+            if ((words.get((int) (bit >>> 6)) & (1L << bit)) == 0) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * 지금 채워진 비트 비율로 계산한 오탐률 (채워진 비율 ^ k)
+     */
+    public double expectedFpp() {
+        return Math.pow((double) bitCount.get() / bitSize, hashCount);
+    }
+
+    public long byteSize() {
+        return words.length() * 8L;
+    }
+
+    public long insertions() {
+        return insertions.get();
+    }
+
+    public int hashCount() {
+        return hashCount;
+    }
+
+    // FNV-1a 64 + murmur3 fmix64
+    private static long hash(String value) {
+        long h = 0xcbf29ce484222325L;
+        for (int i = 0; i < value.length(); i++) {
+            h ^= value.charAt(i);
+            h *= 0x100000001b3L;
+        }
+        return mix(h);
+    }
+
+    private static long mix(long h) {
+        h ^= h >>> 33;
+        h *= 0xff51afd7ed558ccdL;
+        h ^= h >>> 33;
+        h *= 0xc4ceb9fe1a85ec53L;
+        h ^= h >>> 33;
+        return h;
+    }
+}
@@ -0,0 +1,61 @@
+package com.example.querydsl.support;
+
+import java.text.Normalizer;
+import java.util.Locale;
+import java.util.regex.Pattern;
+
+/**
+ * 메모리 인덱스 / 필터의 문자열 키를 MySQL 기본 collation (utf8mb4_0900_ai_ci) 비교에 맞춘다.
+ *
+ * DB 는 대소문자와 악센트를 무시하고 비교하기 때문에 ("MEMBER1" = "member1", "é" = "e")
+ * 키를 악센트를 뗀 소문자로 만들어서 같은 값으로 취급한다.
+ * 0900 collation 은 NO PAD 라 뒤 공백은 그대로 둔다.
+ *
+ * 완전히 같지는 않다. 악센트 분리로 안 떨어지는 문자 (ß = ss, æ = ae 같은 확장) 는 DB 에서만 같다.
+ * 그래서 ASCII / 한글(NFD 로 풀어 쓴 자모) 이 아닌 문자가 남은 키는 exact() 가 false 이고,
+ * 이 키로는 메모리에서 답하지 말고 SQL 로 넘긴다.
+ */
+public final class CollationKey {
+
+    private static final Pattern COMBINING_MARKS = Pattern.compile("\\p{M}+");
+
+    private CollationKey() {
+    }
+
+    public static String of(String value) {
+        if (value == null) {
+            return null;
+        }
+        if (isAscii(value)) {
+            return value.toLowerCase(Locale.ROOT); // 대부분 여기서 끝난다.
+        }
+        String stripped = COMBINING_MARKS.matcher(Normalizer.normalize(value, Normalizer.Form.NFD)).replaceAll("");
+        return stripped.toLowerCase(Locale.ROOT);
+    }
+
+    /**
+     * @param key of() 로 만든 키
+     * @return DB collation 과 같은 결과를 낸다고 믿을 수 있으면 true
+     */
+    public static boolean exact(String key) {
+        if (key == null) {
+            return true;
+        }
+        for (int i = 0; i < key.length(); i++) {
+            char c = key.charAt(i);
+            if (c >= 0x80 && (c < 0x1100 || c > 0x11FF)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static boolean isAscii(String value) {
+        for (int i = 0; i < value.length(); i++) {
+            if (value.charAt(i) >= 0x80) {
+                return false;
+            }
+        }
+        return true;
+    }
+}
@@ -0,0 +1,46 @@
+package com.example.querydsl.support;
+
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Fenwick tree (binary indexed tree) - 0 ~ size-1 위치의 값 누적합을 O(log n) 으로 갱신 / 조회한다.
+ *
+ * 칸마다 원자적으로 더하기 때문에 여러 스레드가 동시에 add 해도 합계가 유실되지 않는다.
+ * (동시에 add 중인 구간을 읽으면 그 순간 반쯤 반영된 값이 보일 수 있다)
+ */
+public class FenwickTree {
+
+    private final AtomicLongArray tree;
+
+    public FenwickTree(int size) {
+        this.tree = new AtomicLongArray(size + 1);
+    }
+
+    public int size() {
+        return tree.length() - 1;
+    }
+
+    public void add(int index, long delta) {
+        for (int i = index + 1; i < tree.length(); i += i & -i) {
+            tree.addAndGet(i, delta);
+        }
+    }
+
+    /**
+     * 0 ~ index 합계 (index < 0 이면 0)
+     */
+    public long prefixSum(int index) {
+        long sum = 0;
+        for (int i = Math.min(index + 1, size()); i > 0; i -= i & -i) {
+            sum += tree.get(i);
+        }
+        return sum;
+    }
+
+    /**
+     * from ~ to 합계 (양 끝 포함)
+     */
+    public long rangeSum(int from, int to) {
+        return from > to ? 0 : prefixSum(to) - prefixSum(from - 1);
+    }
+}
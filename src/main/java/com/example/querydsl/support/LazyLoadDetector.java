@@ -0,0 +1,122 @@
+package com.example.querydsl.support;
+
+import jakarta.annotation.PostConstruct;
+import jakarta.persistence.EntityManagerFactory;
+import lombok.extern.slf4j.Slf4j;
+import org.hibernate.engine.spi.SessionFactoryImplementor;
+import org.hibernate.event.service.spi.EventListenerRegistry;
+import org.hibernate.event.spi.EventType;
+import org.hibernate.event.spi.InitializeCollectionEvent;
+import org.hibernate.event.spi.InitializeCollectionEventListener;
+import org.hibernate.event.spi.LoadEvent;
+import org.hibernate.event.spi.LoadEventListener;
+import org.springframework.stereotype.Component;
+
+/**
+ * N+1 감지기 - 구간(요청, 테스트 등) 안에서 일어난 지연로딩(프록시 초기화, 컬렉션 초기화) 횟수를 센다.
+ *
+ * 구간은 begin / end 로 감싸고 (웹 요청은 LazyLoadInterceptor 가 알아서 감싼다)
+ * 한 구간에서 threshold 를 넘으면 처음 넘은 시점의 호출 위치를 로그로 남기거나, failOnExceed 면 예외를 던진다.
+ * 구간 밖에서는 아무것도 하지 않는다.
+ */
+@Slf4j
+@Component
+public class LazyLoadDetector implements LoadEventListener, InitializeCollectionEventListener {
+
+    private static final ThreadLocal<Scope> SCOPE = new ThreadLocal<>();
+
+    private static final StackWalker STACK_WALKER = StackWalker.getInstance();
+
+    private final EntityManagerFactory emf;
+
+    public LazyLoadDetector(EntityManagerFactory emf) {
+        this.emf = emf;
+    }
+
+    @PostConstruct
+    public void register() {
+        EventListenerRegistry registry = emf.unwrap(SessionFactoryImplementor.class)
+                .getServiceRegistry()
+                .getService(EventListenerRegistry.class);
+        registry.appendListeners(EventType.LOAD, this);
+        registry.appendListeners(EventType.INIT_COLLECTION, this);
+    }
+
+    public static void begin(String name, int threshold, boolean failOnExceed) {
+        SCOPE.set(new Scope(name, threshold, failOnExceed));
+    }
+
+    /**
+     * @return 구간 안에서 일어난 지연로딩 횟수
+     */
+    public static int end() {
+        Scope scope = SCOPE.get();
+        SCOPE.remove();
+        return scope == null ? 0 : scope.count;
+    }
+
+    public static int current() {
+        Scope scope = SCOPE.get();
+        return scope == null ? 0 : scope.count;
+    }
+
+    @Override
+    public void onLoad(LoadEvent event, LoadType loadType) {
+        // 프록시 초기화는 IMMEDIATE_LOAD 로 들어온다. (em.find 등은 GET)
+        if (loadType == IMMEDIATE_LOAD) {
+            record(event.getEntityClassName());
+        }
+    }
+
+    @Override
+    public void onInitializeCollection(InitializeCollectionEvent event) {
+        record(event.getCollection().getRole());
+    }
+
+    private void record(String target) {
+        Scope scope = SCOPE.get();
+        if (scope == null) {
+            return;
+        }
+        scope.count++;
+        if (scope.count <= scope.threshold || scope.reported) {
+            return;
+        }
+
+        scope.reported = true;
+        String message = String.format("N+1 suspected in [%s]: %d lazy loads (threshold %d), last %s at %s",
+                scope.name, scope.count, scope.threshold, target, callSite());
+        if (scope.failOnExceed) {
+            throw new IllegalStateException(message);
+        }
+        log.warn(message);
+    }
+
+    /**
+     * 지연로딩을 일으킨 우리 코드 위치 (hibernate 프록시, 이 감지기 자체는 건너뛴다)
+     */
+    private static String callSite() {
+        return STACK_WALKER.walk(frames -> frames
+                .filter(frame -> frame.getClassName().startsWith("com.example.querydsl"))
+                .filter(frame -> !frame.getClassName().startsWith("com.example.querydsl.support"))
+                .filter(frame -> !frame.getClassName().contains("$HibernateProxy"))
+                .findFirst()
+                .map(StackWalker.StackFrame::toStackTraceElement)
+                .map(StackTraceElement::toString)
+                .orElse("unknown"));
+    }
+
+    private static class Scope {
+        final String name;
+        final int threshold;
+        final boolean failOnExceed;
+        int count;
+        boolean reported;
+
+        Scope(String name, int threshold, boolean failOnExceed) {
+            this.name = name;
+            this.threshold = threshold;
+            this.failOnExceed = failOnExceed;
+        }
+    }
+}
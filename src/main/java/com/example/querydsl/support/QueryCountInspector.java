@@ -0,0 +1,74 @@
+package com.example.querydsl.support;
+
+import org.hibernate.resource.jdbc.spi.StatementInspector;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.regex.Pattern;
+
+/**
+ * hibernate 가 실행하는 SQL 문 수를 스레드별로 센다.
+ *
+ * hibernate.session_factory.statement_inspector 로 등록되고, hibernate 가 직접 생성하기 때문에 상태는 static 이다.
+ * 누적값만 들고 있으니 구간 측정은 전/후 값의 차이로 계산한다.
+ *
+ * 엔티티 이벤트가 나오지 않는 member 벌크 update / delete (pk 하나 조건이 아닌 것) 횟수도 같이 센다. (MemberAgeIndex 의 stale 판정용)
+ * 그중 username 을 바꾸거나 새로 넣을 수 있는 것 (username 을 set 하는 벌크 update, insert ... select) 은 따로 센다. (UsernameFilter 용)
+ */
+public class QueryCountInspector implements StatementInspector {
+
+    private static final ThreadLocal<long[]> COUNT = ThreadLocal.withInitial(() -> new long[1]);
+
+    private static final AtomicLong MEMBER_BULK_MUTATIONS = new AtomicLong();
+    private static final AtomicLong MEMBER_USERNAME_MUTATIONS = new AtomicLong();
+
+    // (앞쪽 주석) update member ... / delete [alias] from member ... 중에 "where member_id=?" 로 끝나지 않는 것
+    private static final Pattern MEMBER_BULK_MUTATION = Pattern.compile(
+            "^\\s*(?:/\\*.*?\\*/\\s*)?(?:update\\s+member\\b|delete\\s+(?:\\w+\\s+)?from\\s+member\\b)"
+                    + "(?!.*where\\s+member_id\\s*=\\s*\\?\\s*$)",
+            Pattern.CASE_INSENSITIVE | Pattern.DOTALL);
+
+    // 위 벌크 연산 중 where 앞 set 절에 username 이 있는 update
+    private static final Pattern USERNAME_UPDATE = Pattern.compile(
+            "^\\s*(?:/\\*.*?\\*/\\s*)?update\\s+member\\b(?:(?!\\bwhere\\b).)*\\busername\\s*=",
+            Pattern.CASE_INSENSITIVE | Pattern.DOTALL);
+
+    // insert into member (...) select ... (엔티티 insert 는 values 라 해당 없음)
+    private static final Pattern MEMBER_INSERT_SELECT = Pattern.compile(
+            "^\\s*(?:/\\*.*?\\*/\\s*)?insert\\s+into\\s+member\\b[^(]*\\([^)]*\\)\\s*select\\b",
+            Pattern.CASE_INSENSITIVE | Pattern.DOTALL);
+
+    @Override
+    public String inspect(String sql) {
+        COUNT.get()[0]++;
+        if (MEMBER_BULK_MUTATION.matcher(sql).find()) {
+            MEMBER_BULK_MUTATIONS.incrementAndGet();
+            if (USERNAME_UPDATE.matcher(sql).find()) {
+                MEMBER_USERNAME_MUTATIONS.incrementAndGet();
+            }
+        } else if (MEMBER_INSERT_SELECT.matcher(sql).find()) {
+            MEMBER_USERNAME_MUTATIONS.incrementAndGet();
+        }
+        return sql;
+    }
+
+    /**
+     * 현재 스레드에서 지금까지 실행된 SQL 문 수
+     */
+    public static long current() {
+        return COUNT.get()[0];
+    }
+
+    /**
+     * 지금까지 (전체 스레드) 실행된 member 벌크 update / delete 수
+     */
+    public static long memberBulkMutations() {
+        return MEMBER_BULK_MUTATIONS.get();
+    }
+
+    /**
+     * 지금까지 (전체 스레드) 실행된 username 을 바꿀 수 있는 member 벌크 update / insert ... select 수
+     */
+    public static long memberUsernameMutations() {
+        return MEMBER_USERNAME_MUTATIONS.get();
+    }
+}
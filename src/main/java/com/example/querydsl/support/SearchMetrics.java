@@ -0,0 +1,114 @@
+package com.example.querydsl.support;
+
+import com.example.querydsl.dto.MemberCursorPage;
+import com.example.querydsl.dto.MemberSearchCondition;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.springframework.data.domain.Slice;
+import org.springframework.stereotype.Component;
+
+import java.util.Collection;
+import java.util.StringJoiner;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
+
+import static com.example.querydsl.dto.MemberSearchCondition.*;
+
+/**
+ * 검색 repository 메서드별 + 조건 조합(shape)별 지표
+ *
+ * - member.search             : 응답 시간 히스토그램 (p50, p99 ... /actuator/prometheus)
+ *                               outcome=success|error, exception=예외 클래스 이름 (성공이면 none) 태그
+ * - member.search.rows        : 반환 row 수 (성공한 호출만)
+ * - member.search.statements  : 실행된 SQL 문 수 (실패한 호출 포함)
+ *
+ * 성공 태그 조합은 (메서드 수 x 16) 으로 고정이라 meter 는 처음 한번만 만들고 재사용한다.
+ * 실패한 호출의 timer 는 예외 종류가 많지 않으니 그때그때 registry 에서 찾는다.
+ * SQL 문 수는 호출한 스레드 기준이라 다른 스레드에서 도는 병렬 count 는 빠진다.
+ */
+@Component
+public class SearchMetrics {
+
+    private static final String[] SHAPE_TAGS = new String[SHAPE_COUNT];
+
+    static {
+        for (int shape = 0; shape < SHAPE_COUNT; shape++) {
+            StringJoiner joiner = new StringJoiner("+");
+            if ((shape & USERNAME) != 0) joiner.add("username");
+            if ((shape & TEAM_NAME) != 0) joiner.add("teamName");
+            if ((shape & AGE_GOE) != 0) joiner.add("ageGoe");
+            if ((shape & AGE_LOE) != 0) joiner.add("ageLoe");
+            SHAPE_TAGS[shape] = shape == 0 ? "none" : joiner.toString();
+        }
+    }
+
+    private final MeterRegistry registry;
+    private final ConcurrentMap<String, Meters[]> meters = new ConcurrentHashMap<>();
+
+    public SearchMetrics(MeterRegistry registry) {
+        this.registry = registry;
+    }
+
+    public <T> T record(String method, MemberSearchCondition condition, Supplier<T> query) {
+        Meters meter = meters(method, condition.shape());
+        long statements = QueryCountInspector.current();
+        long start = System.nanoTime();
+        Timer latency = meter.latency;
+        try {
+            T result = query.get();
+            meter.rows.record(rows(result));
+            return result;
+        } catch (RuntimeException | Error e) {
+            latency = Meters.latency(registry, method, SHAPE_TAGS[condition.shape()], "error", e.getClass().getSimpleName());
+            throw e;
+        } finally {
+            latency.record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+            meter.statements.record(QueryCountInspector.current() - statements);
+        }
+    }
+
+    private Meters meters(String method, int shape) {
+        Meters[] byShape = meters.computeIfAbsent(method, key -> new Meters[SHAPE_COUNT]);
+        Meters meter = byShape[shape];
+        if (meter == null) {
+            // 같은 이름 + 태그면 registry 가 같은 meter 를 돌려주기 때문에 경합이 나도 상관 없다.
+            meter = new Meters(registry, method, SHAPE_TAGS[shape]);
+            byShape[shape] = meter;
+        }
+        return meter;
+    }
+
+    private static long rows(Object result) {
+        if (result instanceof Collection<?> collection) return collection.size();
+        if (result instanceof Slice<?> slice) return slice.getNumberOfElements();
+        if (result instanceof MemberCursorPage page) return page.getContent().size();
+        return result == null ? 0 : 1;
+    }
+
+    private static class Meters {
+        final Timer latency;
+        final DistributionSummary rows;
+        final DistributionSummary statements;
+
+        Meters(MeterRegistry registry, String method, String shape) {
+            this.latency = latency(registry, method, shape, "success", "none");
+            this.rows = DistributionSummary.builder("member.search.rows")
+                    .tags("method", method, "shape", shape)
+                    .register(registry);
+            this.statements = DistributionSummary.builder("member.search.statements")
+                    .tags("method", method, "shape", shape)
+                    .register(registry);
+        }
+
+        static Timer latency(MeterRegistry registry, String method, String shape, String outcome, String exception) {
+            return Timer.builder("member.search")
+                    .description("member search latency")
+                    .tags("method", method, "shape", shape, "outcome", outcome, "exception", exception)
+                    .publishPercentileHistogram()
+                    .register(registry);
+        }
+    }
+}
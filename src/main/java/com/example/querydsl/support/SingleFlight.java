@@ -0,0 +1,75 @@
+package com.example.querydsl.support;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.function.Supplier;
+
+/**
+ * 같은 키로 동시에 들어온 호출을 하나로 합친다.
+ *
+ * 먼저 들어온 호출(leader)만 실제로 실행하고, 실행 중에 같은 키로 들어온 호출(follower)은 그 결과(예외 포함)를 같이 받는다.
+ * 결과를 캐시하지는 않는다. 실행이 끝난 뒤에 들어온 호출은 다시 실행한다.
+ * 같은 결과 객체를 여러 호출이 나눠 가지므로 결과는 바꾸지 않는 값이어야 한다.
+ */
+public class SingleFlight<K, V> {
+
+    private final ConcurrentMap<K, CompletableFuture<V>> inFlight = new ConcurrentHashMap<>();
+
+    /**
+     * @return leader 면 직접 실행한 결과, follower 면 leader 의 결과
+     */
+    public V execute(K key, Supplier<V> call) {
+        return execute(key, call, null);
+    }
+
+    /**
+     * @param onShared follower 로 합쳐졌을 때 호출 (지표용, null 가능)
+     */
+    public V execute(K key, Supplier<V> call, Runnable onShared) {
+        CompletableFuture<V> mine = new CompletableFuture<>();
+        CompletableFuture<V> running = inFlight.putIfAbsent(key, mine);
+        if (running != null) {
+            if (onShared != null) {
+                onShared.run();
+            }
+            return join(running);
+        }
+
+        try {
+            V value = call.get();
+            mine.complete(value);
+            return value;
+        } catch (RuntimeException | Error e) {
+            mine.completeExceptionally(e);
+            throw e;
+        } finally {
+            inFlight.remove(key, mine);
+        }
+    }
+
+    /**
+     * 지금 실행 중인 키 수
+     */
+    public int inFlight() {
+        return inFlight.size();
+    }
+
+    /**
+     * leader 에서 난 예외는 CompletionException 을 벗겨서 그대로 던진다.
+     */
+    private static <V> V join(CompletableFuture<V> running) {
+        try {
+            return running.join();
+        } catch (CompletionException e) {
+            if (e.getCause() instanceof RuntimeException cause) {
+                throw cause;
+            }
+            if (e.getCause() instanceof Error cause) {
+                throw cause;
+            }
+            throw e;
+        }
+    }
+}
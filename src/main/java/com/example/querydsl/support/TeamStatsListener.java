@@ -0,0 +1,129 @@
+package com.example.querydsl.support;
+
+import com.example.querydsl.domain.Member;
+import com.example.querydsl.domain.Team;
+import com.example.querydsl.repository.TeamStatsDelta;
+import jakarta.annotation.PostConstruct;
+import jakarta.persistence.EntityManagerFactory;
+import lombok.extern.slf4j.Slf4j;
+import org.hibernate.action.spi.AfterTransactionCompletionProcess;
+import org.hibernate.action.spi.BeforeTransactionCompletionProcess;
+import org.hibernate.engine.spi.SessionFactoryImplementor;
+import org.hibernate.engine.spi.SharedSessionContractImplementor;
+import org.hibernate.event.service.spi.EventListenerRegistry;
+import org.hibernate.event.spi.EventSource;
+import org.hibernate.event.spi.EventType;
+import org.hibernate.event.spi.PostDeleteEvent;
+import org.hibernate.event.spi.PostDeleteEventListener;
+import org.hibernate.event.spi.PostInsertEvent;
+import org.hibernate.event.spi.PostInsertEventListener;
+import org.hibernate.event.spi.PostUpdateEvent;
+import org.hibernate.event.spi.PostUpdateEventListener;
+import org.hibernate.persister.entity.EntityPersister;
+import org.springframework.stereotype.Component;
+
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Member insert / delete / update 를 보고 팀별 집계(TeamStats) 변화량을 트랜잭션 단위로 모은다.
+ *
+ * 변화량은 커밋 직전(flush 가 끝난 뒤)에 한번만 team_stats 에 반영한다. 롤백되면 그냥 버린다.
+ * JPQL 벌크 연산은 이벤트가 안 나오기 때문에 MemberBulkRepository 가 따로 반영한다.
+ */
+@Slf4j
+@Component
+public class TeamStatsListener implements PostInsertEventListener, PostUpdateEventListener, PostDeleteEventListener {
+
+    private final EntityManagerFactory emf;
+
+    // 진행 중인 세션(트랜잭션)별 변화량
+    private final Map<SharedSessionContractImplementor, TeamStatsDelta> pending = new ConcurrentHashMap<>();
+
+    public TeamStatsListener(EntityManagerFactory emf) {
+        this.emf = emf;
+    }
+
+    @PostConstruct
+    public void register() {
+        EventListenerRegistry registry = emf.unwrap(SessionFactoryImplementor.class)
+                .getServiceRegistry()
+                .getService(EventListenerRegistry.class);
+        registry.appendListeners(EventType.POST_INSERT, this);
+        registry.appendListeners(EventType.POST_UPDATE, this);
+        registry.appendListeners(EventType.POST_DELETE, this);
+    }
+
+    @Override
+    public void onPostInsert(PostInsertEvent event) {
+        if (event.getEntity() instanceof Member) {
+            EntityPersister persister = event.getPersister();
+            delta(event.getSession()).add(teamId(persister, event.getState()), age(persister, event.getState()));
+        }
+    }
+
+    @Override
+    public void onPostDelete(PostDeleteEvent event) {
+        if (event.getEntity() instanceof Member) {
+            EntityPersister persister = event.getPersister();
+            delta(event.getSession()).remove(teamId(persister, event.getDeletedState()), age(persister, event.getDeletedState()));
+        }
+    }
+
+    @Override
+    public void onPostUpdate(PostUpdateEvent event) {
+        if (!(event.getEntity() instanceof Member)) {
+            return;
+        }
+        Object[] oldState = event.getOldState();
+        if (oldState == null) {
+            // 이전 값을 모르는 update (detached 엔티티 직접 update 등) - 정합성 작업에 맡긴다.
+            log.debug("member {} updated without old state, team stats left to reconciliation", event.getId());
+            return;
+        }
+
+        EntityPersister persister = event.getPersister();
+        Long oldTeamId = teamId(persister, oldState);
+        Long newTeamId = teamId(persister, event.getState());
+        int oldAge = age(persister, oldState);
+        int newAge = age(persister, event.getState());
+        if (Objects.equals(oldTeamId, newTeamId) && oldAge == newAge) {
+            return;
+        }
+
+        TeamStatsDelta delta = delta(event.getSession());
+        delta.remove(oldTeamId, oldAge);
+        delta.add(newTeamId, newAge);
+    }
+
+    @Override
+    public boolean requiresPostCommitHandling(EntityPersister persister) {
+        return false;
+    }
+
+    private TeamStatsDelta delta(EventSource session) {
+        return pending.computeIfAbsent(session, s -> {
+            session.getActionQueue().registerProcess((BeforeTransactionCompletionProcess) this::apply);
+            session.getActionQueue().registerProcess((AfterTransactionCompletionProcess) (success, completed) -> pending.remove(completed));
+            return new TeamStatsDelta();
+        });
+    }
+
+    private void apply(SharedSessionContractImplementor session) {
+        TeamStatsDelta delta = pending.get(session);
+        if (delta != null && !delta.isEmpty()) {
+            delta.apply(session);
+        }
+    }
+
+    private static Long teamId(EntityPersister persister, Object[] state) {
+        // 프록시여도 getId 는 초기화를 일으키지 않는다.
+        Team team = (Team) state[persister.getPropertyIndex("team")];
+        return team == null ? null : team.getId();
+    }
+
+    private static int age(EntityPersister persister, Object[] state) {
+        return (Integer) state[persister.getPropertyIndex("age")];
+    }
+}
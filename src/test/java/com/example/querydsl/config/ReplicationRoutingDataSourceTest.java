@@ -0,0 +1,84 @@
+package com.example.querydsl.config;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DataSourceTransactionManager;
+import org.springframework.jdbc.datasource.DriverManagerDataSource;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import javax.sql.DataSource;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * h2 인메모리 db 두개를 primary / replica 로 띄워서 라우팅 확인
+ * 각 db 의 node 테이블에 자기 이름을 넣어두고 어느 쪽에서 읽었는지 본다.
+ */
+class ReplicationRoutingDataSourceTest {
+
+    DriverManagerDataSource primary;
+    DriverManagerDataSource replica;
+
+    JdbcTemplate jdbcTemplate;
+    TransactionTemplate transactionTemplate;
+
+    @BeforeEach
+    public void before() {
+        primary = h2("primary");
+        replica = h2("replica");
+
+        DataSource routing = ReplicationDataSourceConfig.routingDataSource(primary, replica);
+        jdbcTemplate = new JdbcTemplate(routing);
+        transactionTemplate = new TransactionTemplate(new DataSourceTransactionManager(routing));
+    }
+
+    @AfterEach
+    public void after() {
+        new JdbcTemplate(primary).execute("drop table node");
+        new JdbcTemplate(replica).execute("drop table node");
+    }
+
+    @Test
+    public void readOnlyTransactionGoesToReplica() throws Exception {
+        transactionTemplate.setReadOnly(true);
+        String node = transactionTemplate.execute(status -> currentNode());
+        assertThat(node).isEqualTo("replica");
+    }
+
+    @Test
+    public void readWriteTransactionGoesToPrimary() throws Exception {
+        String node = transactionTemplate.execute(status -> currentNode());
+        assertThat(node).isEqualTo("primary");
+    }
+
+    @Test
+    public void withoutTransactionGoesToPrimary() throws Exception {
+        assertThat(currentNode()).isEqualTo("primary");
+    }
+
+    /**
+     * 쓰기 트랜잭션 안에서 호출된 읽기 전용 메서드는 바깥 트랜잭션(primary)에 참여한다. (방금 쓴 데이터를 읽을 수 있어야 함)
+     */
+    @Test
+    public void readOnlyJoinedToReadWriteStaysOnPrimary() throws Exception {
+        TransactionTemplate readOnly = new TransactionTemplate(transactionTemplate.getTransactionManager());
+        readOnly.setReadOnly(true);
+
+        String node = transactionTemplate.execute(status -> readOnly.execute(inner -> currentNode()));
+        assertThat(node).isEqualTo("primary");
+    }
+
+    private String currentNode() {
+        return jdbcTemplate.queryForObject("select name from node", String.class);
+    }
+
+    private static DriverManagerDataSource h2(String name) {
+        DriverManagerDataSource dataSource = new DriverManagerDataSource("jdbc:h2:mem:" + name + ";DB_CLOSE_DELAY=-1", "sa", "");
+        JdbcTemplate jdbcTemplate = new JdbcTemplate(dataSource);
+        jdbcTemplate.execute("create table node (name varchar(20))");
+        jdbcTemplate.update("insert into node (name) values (?)", name);
+        return dataSource;
+    }
+}
@@ -0,0 +1,96 @@
+package com.example.querydsl.config;
+
+import com.example.querydsl.dto.MemberSearchCondition;
+import com.example.querydsl.dto.MemberTeamDto;
+import com.example.querydsl.repository.MemberQueryRepository;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import javax.sql.DataSource;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * routing 을 켜고 JpaTransactionManager + MemberQueryRepository(@Transactional(readOnly = true)) 경로로 확인한다.
+ *
+ * h2 인메모리 db 두개를 primary / replica 로 띄우고 (스키마는 hibernate 가 primary 에 만든 것을 replica 로 복사)
+ * 양쪽에 서로 다른 member 를 넣어서 어느 쪽에서 읽었는지 본다.
+ */
+@SpringBootTest(properties = {
+        "spring.datasource.routing.enabled=true",
+        "spring.datasource.primary.driver-class-name=org.h2.Driver",
+        "spring.datasource.primary.jdbc-url=jdbc:h2:mem:routing-primary;MODE=MySQL;DB_CLOSE_DELAY=-1",
+        "spring.datasource.primary.username=sa",
+        "spring.datasource.primary.password=",
+        "spring.datasource.replica.driver-class-name=org.h2.Driver",
+        "spring.datasource.replica.jdbc-url=jdbc:h2:mem:routing-replica;MODE=MySQL;DB_CLOSE_DELAY=-1",
+        "spring.datasource.replica.username=sa",
+        "spring.datasource.replica.password=",
+        "member.age-index.enabled=false",
+        "member.username-filter.enabled=false"
+})
+class ReplicationRoutingJpaTest {
+
+    private static final String INSERT_MEMBER =
+            "insert into member (member_id, username, age, team_id, team_name) values (?, ?, ?, null, null)";
+
+    @Autowired
+    @Qualifier("primaryDataSource")
+    DataSource primaryDataSource;
+
+    @Autowired
+    @Qualifier("replicaDataSource")
+    DataSource replicaDataSource;
+
+    @Autowired
+    MemberQueryRepository memberQueryRepository;
+
+    JdbcTemplate primary;
+    JdbcTemplate replica;
+
+    @BeforeEach
+    public void before() {
+        primary = new JdbcTemplate(primaryDataSource);
+        replica = new JdbcTemplate(replicaDataSource);
+        if (replica.queryForObject("select count(*) from information_schema.tables where table_name = 'MEMBER'", Long.class) == 0) {
+            for (String statement : primary.queryForList("script nodata", String.class)) {
+                if (!statement.startsWith("--") && !statement.startsWith("CREATE USER")) {
+                    replica.execute(statement);
+                }
+            }
+        }
+        primary.update(INSERT_MEMBER, 1L, "primary-member", 10);
+        replica.update(INSERT_MEMBER, 2L, "replica-member", 20);
+    }
+
+    @AfterEach
+    public void after() {
+        primary.update("delete from member");
+        replica.update("delete from member");
+    }
+
+    @Test
+    public void searchReadsFromReplica() throws Exception {
+        assertThat(memberQueryRepository.search(new MemberSearchCondition()))
+                .extracting(MemberTeamDto::getUsername)
+                .containsExactly("replica-member");
+    }
+
+    /**
+     * routing 이 켜져 있으면 쿼리 캐시를 쓰지 않는다. (replica 지연으로 옛날 결과가 캐시되지 않게)
+     */
+    @Test
+    public void searchIsNotCachedWithRouting() throws Exception {
+        memberQueryRepository.search(new MemberSearchCondition());
+        replica.update(INSERT_MEMBER, 3L, "replica-member2", 30);
+
+        assertThat(memberQueryRepository.search(new MemberSearchCondition()))
+                .extracting(MemberTeamDto::getUsername)
+                .containsExactlyInAnyOrder("replica-member", "replica-member2");
+    }
+}
@@ -0,0 +1,177 @@
+package com.example.querydsl.repository;
+
+import com.example.querydsl.domain.Member;
+import com.example.querydsl.domain.Team;
+import com.example.querydsl.dto.MemberSearchCondition;
+import jakarta.persistence.EntityManager;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import javax.sql.DataSource;
+import java.util.OptionalLong;
+
+import static com.example.querydsl.domain.QMember.member;
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * 인덱스는 커밋된 변경만 반영하기 때문에 @Transactional 롤백을 쓰지 않는다. (끝나면 직접 지움)
+ */
+@SpringBootTest
+class MemberAgeIndexTest {
+
+    @Autowired
+    EntityManager em;
+
+    @Autowired
+    TransactionTemplate transactionTemplate;
+
+    @Autowired
+    MemberAgeIndex memberAgeIndex;
+
+    @Autowired
+    MemberSearchQueryCache queryCache;
+
+    @Autowired
+    MemberRepository memberRepository;
+
+    @Autowired
+    TeamRepository teamRepository;
+
+    @Autowired
+    MemberBulkRepository memberBulkRepository;
+
+    @Autowired
+    DataSource dataSource;
+
+    @BeforeEach
+    public void before() {
+        transactionTemplate.executeWithoutResult(status -> {
+            Team teamA = new Team("teamA");
+            Team teamB = new Team("teamB");
+            em.persist(teamA);
+            em.persist(teamB);
+
+            em.persist(new Member("member1", 10, teamA));
+            em.persist(new Member("member2", 20, teamA));
+            em.persist(new Member("member3", 30, teamB));
+            em.persist(new Member("member4", 40, teamB));
+            em.persist(new Member("member5", 50));
+        });
+        memberAgeIndex.rebuild();
+    }
+
+    @AfterEach
+    public void after() {
+        memberRepository.deleteAllInBatch();
+        teamRepository.deleteAllInBatch();
+    }
+
+    @Test
+    public void countMatchesSql() throws Exception {
+        assertIndexMatchesSql();
+    }
+
+    @Test
+    public void followsCommittedChanges() throws Exception {
+        transactionTemplate.executeWithoutResult(status -> {
+            Team teamA = teamRepository.findByName("teamA").get(0);
+            em.persist(new Member("member6", 25, teamA));
+            Member member3 = em.createQuery("select m from Member m where m.username = 'member3'", Member.class)
+                    .getSingleResult();
+            member3.setAge(35);
+            member3.changeTeam(teamA);
+            em.remove(em.createQuery("select m from Member m where m.username = 'member1'", Member.class)
+                    .getSingleResult());
+        });
+
+        assertIndexMatchesSql();
+        assertThat(memberAgeIndex.count(condition(null, "teamA", 20, null))).hasValue(3);
+    }
+
+    @Test
+    public void followsTeamRename() throws Exception {
+        transactionTemplate.executeWithoutResult(status -> teamRepository.findByName("teamB").get(0).changeName("teamC"));
+
+        assertThat(memberAgeIndex.count(condition(null, "teamB", null, null))).hasValue(0);
+        assertThat(memberAgeIndex.count(condition(null, "teamC", null, null))).hasValue(2);
+    }
+
+    @Test
+    public void rollbackIsNotApplied() throws Exception {
+        transactionTemplate.executeWithoutResult(status -> {
+            em.persist(new Member("member6", 25));
+            status.setRollbackOnly();
+        });
+
+        assertIndexMatchesSql();
+    }
+
+    @Test
+    public void fallsBackToSql() throws Exception {
+        // username 조건은 인덱스에 없다.
+        assertThat(memberAgeIndex.count(condition("member1", null, null, null))).isEmpty();
+
+        // collation 과 같게 비교한다고 장담할 수 없는 팀 이름
+        assertThat(memberAgeIndex.count(condition(null, "téamA", null, null))).isEmpty();
+
+        // 미커밋 변경이 있는 트랜잭션 안
+        transactionTemplate.executeWithoutResult(status -> {
+            em.persist(new Member("member6", 25));
+            em.flush();
+            assertThat(memberAgeIndex.count(condition(null, null, null, null))).isEmpty();
+            status.setRollbackOnly();
+        });
+
+        // 이벤트가 안 나오는 벌크 연산 뒤에는 다시 만들기 전까지 stale
+        memberBulkRepository.update(member.age.lt(15), clause -> clause.set(member.age, 16));
+        assertThat(memberAgeIndex.count(condition(null, null, null, null))).isEmpty();
+
+        memberAgeIndex.rebuild();
+        assertIndexMatchesSql();
+    }
+
+    /**
+     * hibernate 를 거치지 않은 insert 는 이벤트가 없으니 주기적인 count 비교로 잡는다.
+     */
+    @Test
+    public void rebuildsAfterWritesOutsideHibernate() throws Exception {
+        new JdbcTemplate(dataSource).update(
+                "insert into member (member_id, username, age, team_id, team_name) values (?, ?, ?, null, null)",
+                1_000_000L, "member6", 25);
+
+        memberAgeIndex.rebuildIfStale();
+
+        assertIndexMatchesSql();
+        assertThat(memberAgeIndex.count(condition(null, null, null, null))).hasValue(6);
+    }
+
+    private void assertIndexMatchesSql() {
+        // mysql collation 은 대소문자를 무시한다.
+        String[] teamNames = {null, "teamA", "TEAMA", "teamB", "teamX"};
+        Integer[] ages = {null, -1, 0, 15, 20, 40, 151};
+        for (String teamName : teamNames) {
+            for (Integer ageGoe : ages) {
+                for (Integer ageLoe : ages) {
+                    MemberSearchCondition condition = condition(null, teamName, ageGoe, ageLoe);
+                    OptionalLong indexed = memberAgeIndex.count(condition);
+                    long expected = transactionTemplate.execute(status -> queryCache.count(condition));
+                    assertThat(indexed).as("condition = %s", condition).hasValue(expected);
+                }
+            }
+        }
+    }
+
+    private static MemberSearchCondition condition(String username, String teamName, Integer ageGoe, Integer ageLoe) {
+        MemberSearchCondition condition = new MemberSearchCondition();
+        condition.setUsername(username);
+        condition.setTeamName(teamName);
+        condition.setAgeGoe(ageGoe);
+        condition.setAgeLoe(ageLoe);
+        return condition;
+    }
+}
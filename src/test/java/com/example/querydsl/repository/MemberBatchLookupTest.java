@@ -0,0 +1,79 @@
+package com.example.querydsl.repository;
+
+import com.example.querydsl.domain.Member;
+import com.example.querydsl.domain.Team;
+import jakarta.persistence.EntityManager;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+
+import static com.example.querydsl.support.QueryBudget.expectStatements;
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * chunk 경계가 보이도록 IN 절 크기를 2 로 줄여서 돌린다.
+ */
+@SpringBootTest(properties = "member.batch-lookup.chunk-size=2")
+@Transactional
+class MemberBatchLookupTest {
+
+    @Autowired
+    EntityManager em;
+
+    @Autowired
+    MemberRepository memberRepository;
+
+    Long[] ids;
+
+    @BeforeEach
+    public void before() {
+        Team teamA = new Team("teamA");
+        em.persist(teamA);
+
+        Member member1 = new Member("member1", 10, teamA);
+        Member member2 = new Member("member2", 20, teamA);
+        Member member3 = new Member("member3", 30, teamA);
+        Member member4 = new Member("member4", 40);
+        Member member5 = new Member("member4", 50);
+        for (Member m : List.of(member1, member2, member3, member4, member5)) {
+            em.persist(m);
+        }
+        em.flush();
+        em.clear();
+
+        ids = new Long[]{member1.getId(), member2.getId(), member3.getId(), member4.getId(), member5.getId()};
+    }
+
+    @Test
+    public void findByIdsInInputOrder() throws Exception {
+        Long missing = ids[4] + 1000;
+        List<Long> keys = Arrays.asList(ids[3], ids[0], missing, ids[2], ids[0], null, ids[1]);
+
+        // 중복 / null 빼고 4개 + 없는 id 1개 -> chunk 2 개씩 3번
+        Map<Long, Member> result = expectStatements(3, () -> memberRepository.findByIds(keys));
+
+        assertThat(result.keySet()).containsExactly(ids[3], ids[0], ids[2], ids[1]);
+        assertThat(result.get(ids[0]).getUsername()).isEqualTo("member1");
+    }
+
+    @Test
+    public void findByUsernamesInInputOrder() throws Exception {
+        Map<String, List<Member>> result = memberRepository.findByUsernames(
+                List.of("member3", "nobody", "member4", "member1", "member3"));
+
+        assertThat(result.keySet()).containsExactly("member3", "member4", "member1");
+        assertThat(result.get("member4")).extracting("age").containsExactly(40, 50);
+    }
+
+    @Test
+    public void emptyInput() throws Exception {
+        assertThat(expectStatements(0, () -> memberRepository.findByIds(List.of()))).isEmpty();
+        assertThat(expectStatements(0, () -> memberRepository.findByUsernames(List.of()))).isEmpty();
+    }
+}
@@ -0,0 +1,92 @@
+package com.example.querydsl.repository;
+
+import com.example.querydsl.domain.Member;
+import com.example.querydsl.domain.Team;
+import jakarta.persistence.EntityManager;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static com.example.querydsl.domain.QMember.member;
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+/**
+ * chunk 마다 커밋하기 때문에 @Transactional 롤백을 쓰지 않는다. (끝나면 직접 지움)
+ */
+@SpringBootTest(properties = "member.bulk-update.chunk-size=2")
+class MemberBulkRepositoryTest {
+
+    @Autowired
+    EntityManager em;
+
+    @Autowired
+    TransactionTemplate transactionTemplate;
+
+    @Autowired
+    MemberBulkRepository memberBulkRepository;
+
+    @Autowired
+    MemberRepository memberRepository;
+
+    @Autowired
+    TeamRepository teamRepository;
+
+    @BeforeEach
+    public void before() {
+        transactionTemplate.executeWithoutResult(status -> {
+            Team teamA = new Team("teamA");
+            em.persist(teamA);
+            for (int i = 1; i <= 5; i++) {
+                em.persist(new Member("member" + i, i * 10, teamA));
+            }
+        });
+    }
+
+    @AfterEach
+    public void after() {
+        memberRepository.deleteAllInBatch();
+        teamRepository.deleteAllInBatch();
+    }
+
+    @Test
+    public void updateInChunks() throws Exception {
+        List<MemberBulkRepository.Progress> progress = new ArrayList<>();
+
+        long count = memberBulkRepository.update(member.age.lt(35),
+                clause -> clause.set(member.username, "비회원"),
+                progress::add);
+
+        assertThat(count).isEqualTo(3);
+        // 대상 member1~3 은 id 가 연속 -> [min, max] 3개 구간을 2개씩 2 chunk
+        assertThat(progress).hasSize(2);
+        assertThat(progress.get(progress.size() - 1).affected()).isEqualTo(3);
+        assertThat(memberRepository.findByUsername("비회원")).extracting("age").containsExactlyInAnyOrder(10, 20, 30);
+    }
+
+    @Test
+    public void deleteInChunks() throws Exception {
+        long count = memberBulkRepository.delete(member.age.goe(20));
+
+        assertThat(count).isEqualTo(4);
+        assertThat(memberRepository.findAll()).extracting("username").containsExactly("member1");
+    }
+
+    @Test
+    public void nothingToDo() throws Exception {
+        assertThat(memberBulkRepository.delete(member.age.gt(100))).isZero();
+    }
+
+    @Test
+    public void rejectOuterTransaction() throws Exception {
+        assertThatThrownBy(() -> transactionTemplate.executeWithoutResult(status ->
+                memberBulkRepository.delete(member.age.goe(20))))
+                .isInstanceOf(IllegalStateException.class);
+    }
+}
@@ -0,0 +1,90 @@
+package com.example.querydsl.repository;
+
+import com.example.querydsl.domain.Member;
+import com.example.querydsl.dto.MemberSearchCondition;
+import jakarta.persistence.EntityManager;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * 정확한 count 는 넘겨준 supplier 로 대신해서 (호출 횟수 확인), 추정 / 정확 전환 조건만 본다.
+ * 추정치가 쓰일 만큼 건수를 작게 잡는다. (exact-threshold 3, 오차 50% 까지 허용)
+ */
+@SpringBootTest(properties = {
+        "member.count-estimate.exact-threshold=3",
+        "member.count-estimate.max-error-ratio=0.5",
+        "member.count-estimate.refresh-after-millis=3600000"
+})
+@Transactional
+class MemberCountEstimatorTest {
+
+    @Autowired
+    EntityManager em;
+
+    @Autowired
+    MemberCountEstimator countEstimator;
+
+    @Test
+    public void estimateWithinErrorBound() throws Exception {
+        MemberSearchCondition condition = new MemberSearchCondition();
+        condition.setAgeGoe(77);
+        AtomicInteger exactCounts = new AtomicInteger();
+
+        MemberCountEstimator.CountEstimate first = countEstimator.estimate(condition, () -> {
+            exactCounts.incrementAndGet();
+            return 4;
+        });
+        assertThat(first).isEqualTo(new MemberCountEstimator.CountEstimate(4, 0, true));
+
+        // 변경이 없으면 캐시된 count 그대로 (추정치, 오차 0)
+        MemberCountEstimator.CountEstimate second = countEstimator.estimate(condition, () -> {
+            exactCounts.incrementAndGet();
+            return 100;
+        });
+        assertThat(second).isEqualTo(new MemberCountEstimator.CountEstimate(4, 0, false));
+        assertThat(exactCounts).hasValue(1);
+
+        // 오차 한계(flush 됐지만 커밋 전인 변경 3건)가 허용치(4 * 0.5)를 넘으면 다시 정확히 센다.
+        em.persist(new Member("member1", 80));
+        em.persist(new Member("member2", 81));
+        em.persist(new Member("member3", 82));
+        em.flush();
+
+        MemberCountEstimator.CountEstimate third = countEstimator.estimate(condition, () -> {
+            exactCounts.incrementAndGet();
+            return 7;
+        });
+        assertThat(third).isEqualTo(new MemberCountEstimator.CountEstimate(7, 0, true));
+        assertThat(exactCounts).hasValue(2);
+    }
+
+    @Test
+    public void smallCountIsAlwaysExact() throws Exception {
+        MemberSearchCondition condition = new MemberSearchCondition();
+        condition.setAgeLoe(1);
+
+        assertThat(countEstimator.estimate(condition, () -> 2).exact()).isTrue();
+        assertThat(countEstimator.estimate(condition, () -> 2).exact()).isTrue();
+    }
+
+    /**
+     * 공백 문자열은 null 조건과 같은 캐시를 쓴다.
+     */
+    @Test
+    public void blankConditionSharesEntry() throws Exception {
+        MemberSearchCondition condition = new MemberSearchCondition();
+        condition.setAgeGoe(88);
+        countEstimator.estimate(condition, () -> 10);
+
+        MemberSearchCondition blank = new MemberSearchCondition();
+        blank.setAgeGoe(88);
+        blank.setUsername(" ");
+        assertThat(countEstimator.estimate(blank, () -> 99).count()).isEqualTo(10);
+    }
+}
@@ -0,0 +1,124 @@
+package com.example.querydsl.repository;
+
+import com.example.querydsl.domain.Member;
+import com.example.querydsl.domain.Team;
+import com.example.querydsl.dto.MemberSearchCondition;
+import com.example.querydsl.dto.MemberTeamDto;
+import com.querydsl.jpa.impl.JPAQueryFactory;
+import jakarta.persistence.EntityManager;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.List;
+
+import static com.example.querydsl.domain.QMember.member;
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * 쿼리 캐시는 커밋된 데이터 기준으로 동작해서 이 테스트는 @Transactional 롤백을 쓰지 않는다. (끝나면 직접 지움)
+ */
+@SpringBootTest
+class MemberQueryRepositoryTest {
+
+    @Autowired
+    EntityManager em;
+
+    @Autowired
+    TransactionTemplate transactionTemplate;
+
+    @Autowired
+    MemberQueryRepository memberQueryRepository;
+
+    @Autowired
+    MemberRepository memberRepository;
+
+    @Autowired
+    TeamRepository teamRepository;
+
+    Statistics statistics;
+
+    @BeforeEach
+    public void before() {
+        transactionTemplate.executeWithoutResult(status -> {
+            Team teamA = new Team("teamA");
+            Team teamB = new Team("teamB");
+            em.persist(teamA);
+            em.persist(teamB);
+
+            em.persist(new Member("member1", 10, teamA));
+            em.persist(new Member("member2", 20, teamA));
+            em.persist(new Member("member3", 30, teamB));
+            em.persist(new Member("member4", 40, teamB));
+        });
+
+        statistics = em.getEntityManagerFactory().unwrap(SessionFactory.class).getStatistics();
+        statistics.setStatisticsEnabled(true);
+        statistics.clear();
+    }
+
+    @AfterEach
+    public void after() {
+        memberRepository.deleteAllInBatch();
+        teamRepository.deleteAllInBatch();
+    }
+
+    @Test
+    public void sameConditionIsServedFromCache() throws Exception {
+        MemberSearchCondition condition = new MemberSearchCondition();
+        condition.setTeamName("teamB");
+
+        memberQueryRepository.search(condition);
+        List<MemberTeamDto> result = memberQueryRepository.search(condition);
+
+        assertThat(result).extracting("username").containsExactlyInAnyOrder("member3", "member4");
+        assertThat(statistics.getQueryCacheHitCount()).isEqualTo(1);
+        assertThat(statistics.getQueryExecutionCount()).isEqualTo(1);
+
+        // 빈 문자열 조건은 null 과 같은 조건 -> 같은 캐시 키
+        MemberSearchCondition blankUsername = new MemberSearchCondition();
+        blankUsername.setTeamName("teamB");
+        blankUsername.setUsername("");
+        memberQueryRepository.search(blankUsername);
+        assertThat(statistics.getQueryCacheHitCount()).isEqualTo(2);
+    }
+
+    @Test
+    public void pageIsPartOfCacheKey() throws Exception {
+        MemberSearchCondition condition = new MemberSearchCondition();
+
+        memberQueryRepository.searchPage(condition, PageRequest.of(0, 2));
+        memberQueryRepository.searchPage(condition, PageRequest.of(1, 2));
+        // 0페이지 컨텐츠, count, 1페이지 컨텐츠 (1페이지의 count 는 0페이지 때 캐시된 것 사용)
+        assertThat(statistics.getQueryExecutionCount()).isEqualTo(3);
+
+        assertThat(memberQueryRepository.searchPage(condition, PageRequest.of(1, 2)).getContent())
+                .extracting("username").containsExactly("member3", "member4");
+        assertThat(statistics.getQueryExecutionCount()).isEqualTo(3);
+    }
+
+    /**
+     * 영속성 컨텍스트를 거치지 않는 querydsl 벌크 update 도 캐시를 무효화 한다.
+     */
+    @Test
+    public void bulkUpdateInvalidatesCache() throws Exception {
+        MemberSearchCondition condition = new MemberSearchCondition();
+        condition.setAgeGoe(30);
+        assertThat(memberQueryRepository.search(condition)).hasSize(2);
+
+        transactionTemplate.executeWithoutResult(status -> new JPAQueryFactory(em)
+                .update(member)
+                .set(member.age, member.age.add(100))
+                .where(member.age.lt(30))
+                .execute());
+
+        assertThat(memberQueryRepository.search(condition)).hasSize(4);
+        assertThat(statistics.getQueryCacheHitCount()).isEqualTo(0);
+    }
+}
@@ -2,19 +2,31 @@ package com.example.querydsl.repository;
 
 import com.example.querydsl.domain.Member;
 import com.example.querydsl.domain.Team;
+import com.example.querydsl.dto.InvalidSearchParameterException;
+import com.example.querydsl.dto.MemberCursor;
+import com.example.querydsl.dto.MemberCursorPage;
+import com.example.querydsl.dto.MemberField;
 import com.example.querydsl.dto.MemberSearchCondition;
 import com.example.querydsl.dto.MemberTeamDto;
 import jakarta.persistence.EntityManager;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
 import org.junit.jupiter.api.Test;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.context.SpringBootTest;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Slice;
 import org.springframework.transaction.annotation.Transactional;
 
+import java.util.Arrays;
 import java.util.List;
+import java.util.Map;
 
+import static com.example.querydsl.support.QueryBudget.expectLazyLoadsAtMost;
+import static com.example.querydsl.support.QueryBudget.expectStatements;
 import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
 import static org.junit.jupiter.api.Assertions.*;
 
 @SpringBootTest
@@ -100,4 +112,235 @@ class MemberRepositoryTest {
 
     }
 
-}
\ No newline at end of file
+    /**
+     * 커서 페이징 - 이전 응답의 nextCursor 로 다음 페이지를 이어서 조회
+     */
+    @Test
+    public void searchByCursor() throws Exception {
+        Team teamA = new Team("teamA");
+        Team teamB = new Team("teamB");
+        em.persist(teamA);
+        em.persist(teamB);
+
+        Member member1 = new Member("member1", 10, teamA);
+        Member member2 = new Member("member2", 20, teamA);
+
+        Member member3 = new Member("member3", 30, teamB);
+        Member member4 = new Member("member4", 40, teamB);
+        em.persist(member1);
+        em.persist(member2);
+        em.persist(member3);
+        em.persist(member4);
+
+        MemberSearchCondition condition = new MemberSearchCondition();
+        condition.setAgeGoe(20);
+
+        MemberCursorPage first = memberRepository.searchByCursor(condition, null, 2);
+        assertThat(first.getContent()).extracting("username").containsExactly("member2", "member3");
+        assertThat(first.isHasNext()).isTrue();
+
+        MemberCursorPage second = memberRepository.searchByCursor(condition, MemberCursor.decode(first.getNextCursor()), 2);
+        assertThat(second.getContent()).extracting("username").containsExactly("member4");
+        assertThat(second.isHasNext()).isFalse();
+        assertThat(second.getNextCursor()).isNull();
+    }
+
+    /**
+     * count 쿼리는 team 조건이 있을 때만 team 을 조인한다.
+     * 조건 필드 4개의 null / non-null 조합 16가지를 전부 확인
+     */
+    @Test
+    public void countQueryJoinsTeamOnlyWhenNeeded() throws Exception {
+        Team teamA = new Team("teamA");
+        Team teamB = new Team("teamB");
+        em.persist(teamA);
+        em.persist(teamB);
+
+        em.persist(new Member("member1", 10, teamA));
+        em.persist(new Member("member2", 20, teamA));
+        em.persist(new Member("member3", 30, teamB));
+        em.persist(new Member("member4", 40, teamB));
+        em.flush();
+        em.clear();
+
+        Statistics statistics = em.getEntityManagerFactory().unwrap(SessionFactory.class).getStatistics();
+        statistics.setStatisticsEnabled(true);
+
+        for (int shape = 0; shape < 16; shape++) {
+            MemberSearchCondition condition = new MemberSearchCondition();
+            if ((shape & 1) != 0) condition.setUsername("member4");
+            if ((shape & 2) != 0) condition.setTeamName("teamB");
+            if ((shape & 4) != 0) condition.setAgeGoe(35);
+            if ((shape & 8) != 0) condition.setAgeLoe(40);
+
+            statistics.clear();
+            Page<MemberTeamDto> result = memberRepository.searchPageComplexV1(condition, PageRequest.of(0, 10));
+
+            String countQuery = Arrays.stream(statistics.getQueries())
+                    .filter(query -> query.contains("count("))
+                    .findFirst()
+                    .orElseThrow();
+            assertThat(countQuery).as("condition = %s", condition).contains("count(member1.id)");
+            assertThat(countQuery.contains("join")).as("condition = %s", condition)
+                    .isEqualTo(condition.getTeamName() != null);
+            // 컨텐츠 쿼리 + count 쿼리
+            assertThat(statistics.getPrepareStatementCount()).as("condition = %s", condition).isEqualTo(2);
+            assertThat(result.getTotalElements()).isEqualTo(result.getContent().size());
+        }
+    }
+
+    /**
+     * 레포지토리 호출별 SQL 문 수 (N+1 이 섞여 들어오면 여기서 깨진다)
+     */
+    @Test
+    public void statementBudget() throws Exception {
+        Team teamA = new Team("teamA");
+        Team teamB = new Team("teamB");
+        em.persist(teamA);
+        em.persist(teamB);
+
+        em.persist(new Member("member1", 10, teamA));
+        em.persist(new Member("member2", 20, teamA));
+        em.persist(new Member("member3", 30, teamB));
+        em.persist(new Member("member4", 40, teamB));
+        em.flush();
+        em.clear();
+
+        MemberSearchCondition condition = new MemberSearchCondition();
+
+        expectStatements(1, () -> memberRepository.search(condition));
+        // 컨텐츠 + count
+        expectStatements(2, () -> memberRepository.searchPageComplexV1(condition, PageRequest.of(0, 2)));
+        // 첫 페이지에서 컨텐츠가 페이지 크기보다 작으면 count 생략
+        expectStatements(1, () -> memberRepository.searchPageComplex(condition, PageRequest.of(0, 10)));
+        expectStatements(1, () -> memberRepository.searchByCursor(condition, null, 2));
+        // 다음 페이지가 있어도 count 없이 1번
+        expectStatements(1, () -> memberRepository.searchSlice(condition, PageRequest.of(0, 2)));
+    }
+
+    /**
+     * 엔티티를 받아서 연관관계를 하나씩 건드리면 team 마다 지연로딩이 일어난다.
+     */
+    @Test
+    public void lazyLoadDetector() throws Exception {
+        Team teamA = new Team("teamA");
+        Team teamB = new Team("teamB");
+        em.persist(teamA);
+        em.persist(teamB);
+
+        em.persist(new Member("member1", 10, teamA));
+        em.persist(new Member("member2", 20, teamA));
+        em.persist(new Member("member3", 30, teamB));
+        em.persist(new Member("member4", 40, teamB));
+        em.flush();
+        em.clear();
+
+        List<Member> members = memberRepository.findAll();
+        // team 프록시 2개 초기화, 이미 초기화된 프록시는 다시 세지 않는다.
+        assertThat(expectLazyLoadsAtMost(2, () -> members.forEach(m -> m.getTeam().getName()))).isEqualTo(2);
+
+        em.clear();
+        List<Member> reloaded = memberRepository.findAll();
+        assertThatThrownBy(() -> expectLazyLoadsAtMost(1, () -> reloaded.forEach(m -> m.getTeam().getName())))
+                .hasStackTraceContaining("N+1 suspected");
+    }
+
+    /**
+     * 조인 없는 검색(member.team_name)은 조건 조합 16가지 모두 조인 검색과 결과가 같아야 한다.
+     */
+    @Test
+    public void searchJoinFreeMatchesSearch() throws Exception {
+        Team teamA = new Team("teamA");
+        Team teamB = new Team("teamB");
+        em.persist(teamA);
+        em.persist(teamB);
+
+        em.persist(new Member("member1", 10, teamA));
+        em.persist(new Member("member2", 20, teamA));
+        em.persist(new Member("member3", 30, teamB));
+        em.persist(new Member("member4", 40, teamB));
+        em.persist(new Member("member5", 50));
+        em.flush();
+        em.clear();
+
+        for (int shape = 0; shape < 16; shape++) {
+            MemberSearchCondition condition = new MemberSearchCondition();
+            if ((shape & 1) != 0) condition.setUsername("member4");
+            if ((shape & 2) != 0) condition.setTeamName("teamB");
+            if ((shape & 4) != 0) condition.setAgeGoe(35);
+            if ((shape & 8) != 0) condition.setAgeLoe(40);
+
+            assertThat(memberRepository.searchJoinFree(condition)).as("condition = %s", condition)
+                    .containsExactlyInAnyOrderElementsOf(memberRepository.search(condition));
+            assertThat(memberRepository.searchPageJoinFree(condition, PageRequest.of(0, 2)).getTotalElements())
+                    .as("condition = %s", condition)
+                    .isEqualTo(memberRepository.searchPageComplexV1(condition, PageRequest.of(0, 2)).getTotalElements());
+        }
+    }
+
+    /**
+     * fields 로 고른 컬럼만 (요청 순서대로) 내려온다. team 컬럼 / 조건이 없으면 team 없는 회원도 그대로 나온다.
+     */
+    @Test
+    public void searchFields() throws Exception {
+        Team teamA = new Team("teamA");
+        Team teamB = new Team("teamB");
+        em.persist(teamA);
+        em.persist(teamB);
+
+        Member member1 = new Member("member1", 10, teamA);
+        em.persist(member1);
+        em.persist(new Member("member2", 20, teamA));
+        em.persist(new Member("member3", 30, teamB));
+        em.persist(new Member("member4", 40, teamB));
+        em.persist(new Member("member5", 50));
+        em.flush();
+        em.clear();
+
+        MemberSearchCondition condition = new MemberSearchCondition();
+        List<Map<String, Object>> idAndName = expectStatements(1,
+                () -> memberRepository.searchFields(condition, MemberField.parse("username,memberId,username")));
+        assertThat(idAndName).hasSize(5);
+        assertThat(idAndName.get(0).keySet()).containsExactly("username", "memberId");
+
+        condition.setUsername("member1");
+        assertThat(memberRepository.searchFields(condition, MemberField.parse("teamId,teamName")))
+                .containsExactly(Map.of("teamId", teamA.getId(), "teamName", "teamA"));
+
+        condition.setUsername(null);
+        condition.setTeamName("teamB");
+        Page<Map<String, Object>> page = memberRepository.searchPageFields(condition, MemberField.parse("age"), PageRequest.of(0, 1));
+        assertThat(page.getContent()).hasSize(1);
+        assertThat(page.getContent().get(0).get("age")).isIn(30, 40);
+        assertThat(page.getTotalElements()).isEqualTo(2);
+
+        assertThatThrownBy(() -> MemberField.parse("memberId,password")).isInstanceOf(InvalidSearchParameterException.class);
+        assertThatThrownBy(() -> MemberField.parse(" , ")).isInstanceOf(InvalidSearchParameterException.class);
+    }
+
+    @Test
+    public void searchSlice() throws Exception {
+        Team teamA = new Team("teamA");
+        em.persist(teamA);
+        for (int i = 1; i <= 5; i++) {
+            em.persist(new Member("member" + i, i * 10, teamA));
+        }
+        em.flush();
+        em.clear();
+
+        MemberSearchCondition condition = new MemberSearchCondition();
+
+        Slice<MemberTeamDto> first = memberRepository.searchSlice(condition, PageRequest.of(0, 2));
+        assertThat(first.getContent()).hasSize(2);
+        assertThat(first.hasNext()).isTrue();
+
+        Slice<MemberTeamDto> last = memberRepository.searchSlice(condition, PageRequest.of(2, 2));
+        assertThat(last.getContent()).hasSize(1);
+        assertThat(last.hasNext()).isFalse();
+
+        // 딱 나누어 떨어지는 마지막 페이지도 다음 페이지 없음
+        Slice<MemberTeamDto> exact = memberRepository.searchSlice(condition, PageRequest.of(0, 5));
+        assertThat(exact.getContent()).hasSize(5);
+        assertThat(exact.hasNext()).isFalse();
+    }
+}
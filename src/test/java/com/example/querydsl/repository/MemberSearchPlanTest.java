@@ -0,0 +1,121 @@
+package com.example.querydsl.repository;
+
+import com.example.querydsl.domain.Member;
+import com.example.querydsl.domain.Team;
+import com.example.querydsl.dto.MemberSearchCondition;
+import com.example.querydsl.support.SqlCaptureInspector;
+import jakarta.persistence.EntityManager;
+import org.hibernate.Session;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.util.ArrayList;
+import java.util.List;
+
+import static com.example.querydsl.dto.MemberSearchCondition.*;
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * 검색 조건 조합(shape)별 실행 계획 회귀 테스트
+ *
+ * H2 (MySQL 모드) 에 같은 스키마 / 인덱스를 만들고, 검색이 실제로 실행한 SQL 을 EXPLAIN 해서
+ * 조건이 하나라도 있는 shape 가 member / team 을 풀스캔(tableScan) 하면 실패한다.
+ * (조건이 없는 shape 0 은 원래 전체 조회라 제외)
+ */
+@SpringBootTest(properties = {
+        "spring.datasource.url=jdbc:h2:mem:plan;MODE=MySQL;DATABASE_TO_LOWER=TRUE;DB_CLOSE_DELAY=-1",
+        "spring.datasource.driver-class-name=org.h2.Driver",
+        "spring.datasource.username=sa",
+        "spring.datasource.password=",
+        "spring.jpa.properties.hibernate.session_factory.statement_inspector=com.example.querydsl.support.SqlCaptureInspector"
+})
+@Transactional
+class MemberSearchPlanTest {
+
+    @Autowired
+    EntityManager em;
+
+    @Autowired
+    MemberRepository memberRepository;
+
+    @BeforeEach
+    public void before() {
+        Team teamA = new Team("teamA");
+        Team teamB = new Team("teamB");
+        em.persist(teamA);
+        em.persist(teamB);
+        for (int i = 0; i < 100; i++) {
+            em.persist(new Member("member" + i, i, i % 2 == 0 ? teamA : teamB));
+        }
+        em.flush();
+        em.clear();
+    }
+
+    @Test
+    public void everyShapeUsesAnIndex() throws Exception {
+        for (int shape = 1; shape < SHAPE_COUNT; shape++) {
+            MemberSearchCondition condition = conditionOf(shape);
+
+            memberRepository.search(condition);
+            String plan = explain(SqlCaptureInspector.last(), bindValues(condition));
+
+            assertThat(plan).as("shape %d (%s)\n%s", shape, condition, plan).doesNotContainIgnoringCase("tableScan");
+        }
+    }
+
+    @Test
+    public void everyJoinFreeShapeUsesAnIndex() throws Exception {
+        for (int shape = 1; shape < SHAPE_COUNT; shape++) {
+            MemberSearchCondition condition = conditionOf(shape);
+
+            memberRepository.searchJoinFree(condition);
+            String plan = explain(SqlCaptureInspector.last(), bindValues(condition));
+
+            assertThat(plan).as("shape %d (%s)\n%s", shape, condition, plan).doesNotContainIgnoringCase("tableScan");
+            assertThat(plan).as("shape %d", shape).doesNotContainIgnoringCase("join");
+        }
+    }
+
+    private static MemberSearchCondition conditionOf(int shape) {
+        MemberSearchCondition condition = new MemberSearchCondition();
+        if ((shape & USERNAME) != 0) condition.setUsername("member40");
+        if ((shape & TEAM_NAME) != 0) condition.setTeamName("teamA");
+        if ((shape & AGE_GOE) != 0) condition.setAgeGoe(30);
+        if ((shape & AGE_LOE) != 0) condition.setAgeLoe(50);
+        return condition;
+    }
+
+    /**
+     * where 절 순서 (username, teamName, ageGoe, ageLoe) 대로 바인딩 값
+     */
+    private static List<Object> bindValues(MemberSearchCondition condition) {
+        List<Object> values = new ArrayList<>();
+        if (condition.getUsername() != null) values.add(condition.getUsername());
+        if (condition.getTeamName() != null) values.add(condition.getTeamName());
+        if (condition.getAgeGoe() != null) values.add(condition.getAgeGoe());
+        if (condition.getAgeLoe() != null) values.add(condition.getAgeLoe());
+        return values;
+    }
+
+    private String explain(String sql, List<Object> values) {
+        return em.unwrap(Session.class).doReturningWork(connection -> {
+            try (PreparedStatement statement = connection.prepareStatement("explain " + sql)) {
+                for (int i = 0; i < values.size(); i++) {
+                    statement.setObject(i + 1, values.get(i));
+                }
+                StringBuilder plan = new StringBuilder();
+                try (ResultSet rs = statement.executeQuery()) {
+                    while (rs.next()) {
+                        plan.append(rs.getString(1)).append('\n');
+                    }
+                }
+                return plan.toString();
+            }
+        });
+    }
+}
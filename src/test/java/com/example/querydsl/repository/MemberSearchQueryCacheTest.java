@@ -0,0 +1,146 @@
+package com.example.querydsl.repository;
+
+import com.example.querydsl.domain.Member;
+import com.example.querydsl.domain.Team;
+import com.example.querydsl.dto.MemberSearchCondition;
+import com.example.querydsl.dto.MemberTeamDto;
+import jakarta.persistence.EntityManager;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@SpringBootTest
+@Transactional
+class MemberSearchQueryCacheTest {
+
+    @Autowired
+    EntityManager em;
+
+    @Autowired
+    MemberSearchQueryCache queryCache;
+
+    // 캐시를 쓰지 않고 매번 querydsl 로 조립하는 repository (비교 기준)
+    @Autowired
+    MemberQueryRepository memberQueryRepository;
+
+    @BeforeEach
+    public void before() {
+        Team teamA = new Team("teamA");
+        Team teamB = new Team("teamB");
+        em.persist(teamA);
+        em.persist(teamB);
+
+        em.persist(new Member("member1", 10, teamA));
+        em.persist(new Member("member2", 20, teamA));
+        em.persist(new Member("member3", 30, teamB));
+        em.persist(new Member("member4", 40, teamB));
+        em.persist(new Member("member5", 50));
+    }
+
+    /**
+     * 16가지 조건 조합 모두 매번 조립한 쿼리와 같은 결과가 나와야 한다. (두번씩 호출해서 캐시된 JPQL 도 확인)
+     */
+    @Test
+    public void sameResultForEveryShape() throws Exception {
+        for (int shape = 0; shape < MemberSearchCondition.SHAPE_COUNT; shape++) {
+            MemberSearchCondition condition = condition(shape);
+            assertThat(condition.shape()).isEqualTo(shape);
+
+            List<MemberTeamDto> expected = memberQueryRepository.search(condition);
+            for (int i = 0; i < 2; i++) {
+                assertThat(queryCache.fetch(condition)).as("condition = %s", condition)
+                        .containsExactlyInAnyOrderElementsOf(expected);
+                assertThat(queryCache.count(condition)).as("condition = %s", condition)
+                        .isEqualTo(expected.size());
+            }
+        }
+    }
+
+    @Test
+    public void blankStringIsSameShapeAsNull() throws Exception {
+        MemberSearchCondition condition = new MemberSearchCondition();
+        condition.setUsername(" ");
+        condition.setTeamName("");
+
+        assertThat(condition.shape()).isEqualTo(0);
+        assertThat(queryCache.fetch(condition)).hasSize(5);
+    }
+
+    @Test
+    public void paging() throws Exception {
+        MemberSearchCondition condition = new MemberSearchCondition();
+        condition.setAgeGoe(20);
+
+        assertThat(queryCache.fetch(condition, 1, 2)).hasSize(2);
+        assertThat(queryCache.count(condition)).isEqualTo(4);
+    }
+
+    /**
+     * id 만 페이징 -> row 조회를 페이지 끝까지 이어 붙이면 전체 결과와 같다.
+     */
+    @Test
+    public void deferredJoinPaging() throws Exception {
+        for (int shape = 0; shape < MemberSearchCondition.SHAPE_COUNT; shape++) {
+            MemberSearchCondition condition = condition(shape);
+
+            List<MemberTeamDto> pages = new ArrayList<>();
+            for (int offset = 0; offset < 6; offset += 2) {
+                List<Long> ids = queryCache.fetchIds(condition, offset, 2);
+                List<MemberTeamDto> page = queryCache.fetchByIds(ids);
+                assertThat(page).extracting(MemberTeamDto::getMemberId).containsExactlyElementsOf(ids);
+                pages.addAll(page);
+            }
+            List<MemberTeamDto> expected = new ArrayList<>(queryCache.fetch(condition));
+            expected.sort(Comparator.comparing(MemberTeamDto::getMemberId));
+            assertThat(pages).as("condition = %s", condition).containsExactlyElementsOf(expected);
+        }
+    }
+
+    /**
+     * offset 페이징도 deferred join 과 같은 member.id 순서라서 페이지를 이어 붙이면 id 순 전체 결과와 같다.
+     */
+    @Test
+    public void offsetPagingFollowsIdOrder() throws Exception {
+        for (int shape = 0; shape < MemberSearchCondition.SHAPE_COUNT; shape++) {
+            MemberSearchCondition condition = condition(shape);
+
+            List<MemberTeamDto> pages = new ArrayList<>();
+            List<MemberTeamDto> joinFreePages = new ArrayList<>();
+            for (int offset = 0; offset < 6; offset += 2) {
+                pages.addAll(queryCache.fetch(condition, offset, 2));
+                joinFreePages.addAll(queryCache.fetchJoinFree(condition, offset, 2));
+            }
+            List<MemberTeamDto> expected = new ArrayList<>(queryCache.fetch(condition));
+            expected.sort(Comparator.comparing(MemberTeamDto::getMemberId));
+            assertThat(pages).as("condition = %s", condition).containsExactlyElementsOf(expected);
+            assertThat(joinFreePages).as("condition = %s", condition).containsExactlyElementsOf(expected);
+        }
+    }
+
+    @Test
+    public void fetchByIdsKeepsIdOrder() throws Exception {
+        List<Long> ids = new ArrayList<>(queryCache.fetchIds(new MemberSearchCondition(), 0, 5));
+        Collections.reverse(ids);
+
+        assertThat(queryCache.fetchByIds(ids)).extracting(MemberTeamDto::getMemberId).containsExactlyElementsOf(ids);
+        assertThat(queryCache.fetchByIds(List.of())).isEmpty();
+    }
+
+    private MemberSearchCondition condition(int shape) {
+        MemberSearchCondition condition = new MemberSearchCondition();
+        if ((shape & MemberSearchCondition.USERNAME) != 0) condition.setUsername("member4");
+        if ((shape & MemberSearchCondition.TEAM_NAME) != 0) condition.setTeamName("teamB");
+        if ((shape & MemberSearchCondition.AGE_GOE) != 0) condition.setAgeGoe(35);
+        if ((shape & MemberSearchCondition.AGE_LOE) != 0) condition.setAgeLoe(40);
+        return condition;
+    }
+}
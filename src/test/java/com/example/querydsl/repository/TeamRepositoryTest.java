@@ -0,0 +1,67 @@
+package com.example.querydsl.repository;
+
+import com.example.querydsl.domain.Member;
+import com.example.querydsl.domain.Team;
+import jakarta.persistence.EntityManager;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.CacheRegionStatistics;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.transaction.annotation.Transactional;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@SpringBootTest
+@Transactional
+class TeamRepositoryTest {
+
+    @Autowired
+    EntityManager em;
+
+    @Autowired
+    TeamRepository teamRepository;
+
+    /**
+     * 영속성 컨텍스트를 비워도 두번째 지연로딩 부터는 select 없이 2차 캐시에서 가져온다.
+     */
+    @Test
+    public void teamSecondLevelCache() throws Exception {
+        Team teamA = new Team("teamA");
+        em.persist(teamA);
+        em.persist(new Member("member1", 10, teamA));
+        em.flush();
+        em.clear();
+
+        Statistics statistics = em.getEntityManagerFactory().unwrap(SessionFactory.class).getStatistics();
+        statistics.setStatisticsEnabled(true);
+        statistics.clear();
+
+        // 첫 로딩 - db 조회 후 캐시에 put
+        Member member1 = em.createQuery("select m from Member m where m.username = 'member1'", Member.class)
+                .getSingleResult();
+        assertThat(member1.getTeam().getName()).isEqualTo("teamA");
+        em.clear();
+
+        // 두번째 - 캐시 hit
+        Member again = em.createQuery("select m from Member m where m.username = 'member1'", Member.class)
+                .getSingleResult();
+        long statements = statistics.getPrepareStatementCount();
+        assertThat(again.getTeam().getName()).isEqualTo("teamA");
+
+        CacheRegionStatistics region = statistics.getDomainDataRegionStatistics(Team.class.getName());
+        assertThat(region.getPutCount()).isEqualTo(1);
+        assertThat(region.getHitCount()).isEqualTo(1);
+        // team 지연로딩에 select 가 나가지 않는다.
+        assertThat(statistics.getPrepareStatementCount()).isEqualTo(statements);
+    }
+
+    @Test
+    public void findByName() throws Exception {
+        teamRepository.save(new Team("teamA"));
+        teamRepository.save(new Team("teamB"));
+
+        assertThat(teamRepository.findByName("teamA")).extracting("name").containsExactly("teamA");
+    }
+}
@@ -0,0 +1,166 @@
+package com.example.querydsl.repository;
+
+import com.example.querydsl.domain.Member;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.EntityManagerFactory;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import javax.sql.DataSource;
+import java.util.List;
+
+import static com.example.querydsl.support.QueryBudget.expectStatements;
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * 필터는 커밋된 데이터로 만들기 때문에 @Transactional 롤백을 쓰지 않는다. (끝나면 직접 지움)
+ */
+@SpringBootTest
+class UsernameFilterTest {
+
+    @Autowired
+    EntityManager em;
+
+    @Autowired
+    TransactionTemplate transactionTemplate;
+
+    @Autowired
+    UsernameFilter usernameFilter;
+
+    @Autowired
+    MemberRepository memberRepository;
+
+    @Autowired
+    MemberJpaRepository memberJpaRepository;
+
+    @Autowired
+    EntityManagerFactory emf;
+
+    @Autowired
+    MeterRegistry meterRegistry;
+
+    @Autowired
+    DataSource dataSource;
+
+    @BeforeEach
+    public void before() {
+        transactionTemplate.executeWithoutResult(status -> {
+            em.persist(new Member("member1", 10));
+            em.persist(new Member("member2", 20));
+        });
+        usernameFilter.rebuild();
+    }
+
+    @AfterEach
+    public void after() {
+        memberRepository.deleteAllInBatch();
+    }
+
+    @Test
+    public void missDoesNotHitDatabase() throws Exception {
+        assertThat(expectStatements(0, () -> memberRepository.findByUsername("nobody"))).isEmpty();
+        assertThat(expectStatements(0, () -> memberJpaRepository.findByUsername("nobody"))).isEmpty();
+        assertThat(expectStatements(0, () -> memberJpaRepository.findByUsername_Querydsl("nobody"))).isEmpty();
+
+        assertThat(memberRepository.findByUsername("member1")).extracting("age").containsExactly(10);
+    }
+
+    @Test
+    public void followsInsertAndRename() throws Exception {
+        transactionTemplate.executeWithoutResult(status -> {
+            em.persist(new Member("member3", 30));
+            // 같은 트랜잭션 안에서도 보인다.
+            assertThat(memberRepository.findByUsername("member3")).hasSize(1);
+        });
+        assertThat(memberRepository.findByUsername("member3")).hasSize(1);
+
+        transactionTemplate.executeWithoutResult(status -> memberRepository.findByUsername("member1").get(0).setUsername("renamed"));
+        assertThat(memberRepository.findByUsername("renamed")).extracting("age").containsExactly(10);
+    }
+
+    @Test
+    public void ignoresCaseLikeCollation() throws Exception {
+        // mysql collation 은 대소문자를 무시한다.
+        assertThat(memberRepository.findByUsername("MEMBER1")).extracting("age").containsExactly(10);
+        assertThat(memberRepository.findByUsernames(List.of("Member2", "nobody"))).containsOnlyKeys("Member2");
+    }
+
+    @Test
+    public void bulkUpdateDisablesFilterUntilRebuild() throws Exception {
+        transactionTemplate.executeWithoutResult(status ->
+                em.createQuery("update Member m set m.username = 'bulk' where m.username = 'member2'").executeUpdate());
+
+        assertThat(usernameFilter.check("bulk")).isEqualTo(UsernameFilter.Check.UNCHECKED);
+        assertThat(memberRepository.findByUsername("bulk")).hasSize(1);
+
+        usernameFilter.rebuildIfStale();
+        assertThat(usernameFilter.check("bulk")).isEqualTo(UsernameFilter.Check.MAYBE);
+    }
+
+    @Test
+    public void bulkUpdateWithoutUsernameKeepsFilter() throws Exception {
+        transactionTemplate.executeWithoutResult(status ->
+                em.createQuery("update Member m set m.age = m.age + 1 where m.age >= 20").executeUpdate());
+
+        assertThat(usernameFilter.check("nobody")).isEqualTo(UsernameFilter.Check.ABSENT);
+    }
+
+    @Test
+    public void unflushedRenameIsUnchecked() throws Exception {
+        transactionTemplate.executeWithoutResult(status -> {
+            em.createQuery("select m from Member m where m.username = 'member1'", Member.class)
+                    .getSingleResult()
+                    .setUsername("renamed");
+            assertThat(usernameFilter.check("nobody")).isEqualTo(UsernameFilter.Check.UNCHECKED);
+            status.setRollbackOnly();
+        });
+    }
+
+    /**
+     * 스냅샷을 잡은 (count) 뒤, 새 필터를 building 으로 세팅하기 전에 커밋된 이름도 새 필터에 들어가야 한다.
+     * 그 사이에 다른 스레드에서 커밋하도록 countMembers 를 바꾼 필터를 따로 만들어서 확인한다.
+     */
+    @Test
+    public void commitDuringRebuildIsNotLost() throws Exception {
+        UsernameFilter filter = new UsernameFilter(emf, em, transactionTemplate, meterRegistry, true, 0.01, 1000) {
+            @Override
+            long countMembers() {
+                long members = super.countMembers();
+                Thread writer = new Thread(() -> transactionTemplate.executeWithoutResult(
+                        status -> em.persist(new Member("member3", 30))));
+                writer.start();
+                try {
+                    writer.join();
+                } catch (InterruptedException e) {
+                    throw new IllegalStateException(e);
+                }
+                return members;
+            }
+        };
+        filter.register();
+
+        filter.rebuild();
+
+        assertThat(filter.check("member3")).isEqualTo(UsernameFilter.Check.MAYBE);
+    }
+
+    /**
+     * hibernate 를 거치지 않은 insert 는 이벤트가 없으니 stale-rebuild-cron 의 count 비교로 잡는다.
+     */
+    @Test
+    public void rebuildsAfterInsertOutsideHibernate() throws Exception {
+        new JdbcTemplate(dataSource).update(
+                "insert into member (member_id, username, age, team_id, team_name) values (?, ?, ?, null, null)",
+                1_000_000L, "native", 30);
+
+        usernameFilter.rebuildIfStale();
+
+        assertThat(usernameFilter.check("native")).isEqualTo(UsernameFilter.Check.MAYBE);
+    }
+}
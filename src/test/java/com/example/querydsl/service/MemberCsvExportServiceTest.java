@@ -0,0 +1,107 @@
+package com.example.querydsl.service;
+
+import com.example.querydsl.domain.Member;
+import com.example.querydsl.domain.Team;
+import com.example.querydsl.repository.MemberRepository;
+import com.example.querydsl.repository.TeamRepository;
+import jakarta.persistence.EntityManager;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * worker 가 각자 커넥션으로 읽기 때문에 커밋된 데이터가 필요하다. (@Transactional 롤백 X, 끝나면 직접 지움)
+ * 구간이 여러 개로 나뉘도록 range-size 를 2 로 줄인다.
+ */
+@SpringBootTest(properties = {
+        "member.csv-export.range-size=2",
+        "member.csv-export.parallelism=2",
+        "member.csv-export.buffer-size=16"
+})
+class MemberCsvExportServiceTest {
+
+    @Autowired
+    EntityManager em;
+
+    @Autowired
+    TransactionTemplate transactionTemplate;
+
+    @Autowired
+    MemberCsvExportService memberCsvExportService;
+
+    @Autowired
+    MemberRepository memberRepository;
+
+    @Autowired
+    TeamRepository teamRepository;
+
+    @TempDir
+    Path dir;
+
+    @AfterEach
+    public void after() {
+        memberRepository.deleteAllInBatch();
+        teamRepository.deleteAllInBatch();
+    }
+
+    @Test
+    public void exportInIdOrder() throws Exception {
+        List<Member> members = transactionTemplate.execute(status -> {
+            Team teamA = new Team("teamA");
+            Team teamB = new Team("team,\"B\"");
+            em.persist(teamA);
+            em.persist(teamB);
+
+            List<Member> saved = List.of(
+                    new Member("member1", 10, teamA),
+                    new Member("member2", 20, teamA),
+                    new Member("member3", 30, teamB),
+                    new Member("member4", 40, teamB),
+                    new Member("member5", 50));
+            saved.forEach(em::persist);
+            return saved;
+        });
+
+        Path target = dir.resolve("members.csv");
+        MemberCsvExportService.Result result = memberCsvExportService.export(target);
+
+        List<String> lines = Files.readAllLines(target, StandardCharsets.UTF_8);
+        assertThat(result.rows()).isEqualTo(5);
+        assertThat(result.ranges()).isGreaterThanOrEqualTo(3);
+        assertThat(result.bytes()).isEqualTo(Files.size(target));
+        assertThat(lines).hasSize(6);
+        assertThat(lines.get(0)).isEqualTo("member_id,username,age,team_id,team_name");
+
+        Long teamA = members.get(0).getTeam().getId();
+        Long teamB = members.get(2).getTeam().getId();
+        assertThat(lines.subList(1, 6)).containsExactly(
+                members.get(0).getId() + ",member1,10," + teamA + ",teamA",
+                members.get(1).getId() + ",member2,20," + teamA + ",teamA",
+                members.get(2).getId() + ",member3,30," + teamB + ",\"team,\"\"B\"\"\"",
+                members.get(3).getId() + ",member4,40," + teamB + ",\"team,\"\"B\"\"\"",
+                members.get(4).getId() + ",member5,50,,");
+        // part 파일은 남지 않는다.
+        try (var files = Files.list(dir)) {
+            assertThat(files).containsExactly(target);
+        }
+    }
+
+    @Test
+    public void emptyTable() throws Exception {
+        Path target = dir.resolve("empty.csv");
+        MemberCsvExportService.Result result = memberCsvExportService.export(target);
+
+        assertThat(result.rows()).isZero();
+        assertThat(Files.readAllLines(target)).containsExactly("member_id,username,age,team_id,team_name");
+    }
+}
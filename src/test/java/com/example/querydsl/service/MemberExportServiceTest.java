@@ -0,0 +1,53 @@
+package com.example.querydsl.service;
+
+import com.example.querydsl.domain.Member;
+import com.example.querydsl.domain.Team;
+import com.example.querydsl.dto.MemberSearchCondition;
+import jakarta.persistence.EntityManager;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.io.ByteArrayOutputStream;
+import java.nio.charset.StandardCharsets;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@SpringBootTest
+@Transactional
+class MemberExportServiceTest {
+
+    @Autowired
+    EntityManager em;
+
+    @Autowired
+    MemberExportService memberExportService;
+
+    @Test
+    public void exportNdjson() throws Exception {
+        Team teamA = new Team("teamA");
+        Team teamB = new Team("teamB");
+        em.persist(teamA);
+        em.persist(teamB);
+
+        em.persist(new Member("member1", 10, teamA));
+        em.persist(new Member("member2", 20, teamA));
+        em.persist(new Member("member3", 30, teamB));
+        em.persist(new Member("member4", 40, teamB));
+
+        MemberSearchCondition condition = new MemberSearchCondition();
+        condition.setTeamName("teamB");
+
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        long rows = memberExportService.exportNdjson(condition, out);
+
+        String[] lines = out.toString(StandardCharsets.UTF_8).split("\n");
+        assertThat(rows).isEqualTo(2);
+        assertThat(lines).hasSize(2);
+        // export 쿼리는 정렬하지 않기 때문에 줄 순서는 보지 않는다.
+        assertThat(lines).allSatisfy(line -> assertThat(line).startsWith("{").contains("\"teamName\":\"teamB\""));
+        assertThat(lines).anySatisfy(line -> assertThat(line).contains("\"username\":\"member3\""));
+        assertThat(lines).anySatisfy(line -> assertThat(line).contains("\"username\":\"member4\""));
+    }
+}
@@ -0,0 +1,150 @@
+package com.example.querydsl.service;
+
+import com.example.querydsl.dto.MemberSearchCondition;
+import com.example.querydsl.dto.MemberTeamDto;
+import com.example.querydsl.repository.MemberJpaRepository;
+import com.example.querydsl.repository.MemberRepository;
+import com.example.querydsl.repository.MemberSearchQueryCache;
+import com.example.querydsl.repository.UsernameFilter;
+import com.example.querydsl.support.QueryCountInspector;
+import com.example.querydsl.support.SearchMetrics;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import jakarta.persistence.EntityManager;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * 요청 스레드처럼 트랜잭션 밖에서 호출한다. (@Transactional 이면 합치지 않는다)
+ */
+@SpringBootTest
+class MemberSearchCoalescerTest {
+
+    private static final int FOLLOWERS = 49;
+
+    @Autowired
+    MemberSearchCoalescer memberSearchCoalescer;
+
+    @Autowired
+    MeterRegistry registry;
+
+    @Autowired
+    TransactionTemplate transactionTemplate;
+
+    @Autowired
+    EntityManager em;
+
+    @Autowired
+    MemberSearchQueryCache queryCache;
+
+    @Autowired
+    SearchMetrics searchMetrics;
+
+    @Autowired
+    UsernameFilter usernameFilter;
+
+    @Autowired
+    MemberRepository memberRepository;
+
+    /**
+     * leader 가 DB 조회 전에 follower 가 다 붙을 때까지 기다린다. (SingleFlightTest 와 같은 방식)
+     * -> 실제 실행 1번, 나머지는 전부 결과를 나눠 받고 SQL 도 1번만 나간다.
+     */
+    @Test
+    public void concurrentIdenticalSearches() throws Exception {
+        SimpleMeterRegistry meters = new SimpleMeterRegistry();
+        Counter shared = meters.counter("member.search.coalesce", "result", "shared");
+        CountDownLatch leaderStarted = new CountDownLatch(1);
+        MemberJpaRepository blockingRepository = new MemberJpaRepository(em, queryCache, searchMetrics, usernameFilter) {
+            @Override
+            public List<MemberTeamDto> search(MemberSearchCondition condition) {
+                leaderStarted.countDown();
+                awaitFollowers(shared);
+                return super.search(condition);
+            }
+        };
+        MemberSearchCoalescer coalescer = new MemberSearchCoalescer(blockingRepository, memberRepository, meters, true);
+
+        ExecutorService executor = Executors.newFixedThreadPool(FOLLOWERS + 1);
+        try {
+            Future<Long> leader = executor.submit(() -> statements(coalescer, condition(0)));
+            assertThat(leaderStarted.await(5, TimeUnit.SECONDS)).isTrue();
+
+            List<Future<Long>> followers = new ArrayList<>();
+            for (int i = 1; i <= FOLLOWERS; i++) {
+                // 공백 조건은 null 과 같은 검색으로 합쳐진다.
+                MemberSearchCondition condition = condition(i);
+                followers.add(executor.submit(() -> statements(coalescer, condition)));
+            }
+
+            long dbStatements = leader.get(10, TimeUnit.SECONDS);
+            for (Future<Long> follower : followers) {
+                dbStatements += follower.get(10, TimeUnit.SECONDS);
+            }
+
+            assertThat(meters.counter("member.search.coalesce", "result", "executed").count()).isEqualTo(1);
+            assertThat(shared.count()).isEqualTo(FOLLOWERS);
+            assertThat(dbStatements).isEqualTo(1);
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    @Test
+    public void notCoalescedInsideTransaction() throws Exception {
+        double executedBefore = count("executed");
+        double sharedBefore = count("shared");
+
+        long statements = transactionTemplate.execute(status -> {
+            long before = QueryCountInspector.current();
+            memberSearchCoalescer.search(new MemberSearchCondition());
+            return QueryCountInspector.current() - before;
+        });
+
+        assertThat(statements).isEqualTo(1);
+        assertThat(count("executed") + count("shared")).isEqualTo(executedBefore + sharedBefore);
+    }
+
+    private static long statements(MemberSearchCoalescer coalescer, MemberSearchCondition condition) {
+        long before = QueryCountInspector.current();
+        coalescer.search(condition);
+        return QueryCountInspector.current() - before;
+    }
+
+    private static MemberSearchCondition condition(int i) {
+        MemberSearchCondition condition = new MemberSearchCondition();
+        condition.setTeamName("teamB");
+        condition.setUsername(i % 2 == 0 ? "" : null);
+        return condition;
+    }
+
+    /**
+     * follower 는 SingleFlight 에 붙을 때 shared 를 올린다.
+     */
+    private static void awaitFollowers(Counter shared) {
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+        while (shared.count() < FOLLOWERS) {
+            if (System.nanoTime() > deadline) {
+                throw new IllegalStateException("followers did not join: " + shared.count());
+            }
+            Thread.onSpinWait();
+        }
+    }
+
+    private double count(String result) {
+        return registry.counter("member.search.coalesce", "result", result).count();
+    }
+}
@@ -0,0 +1,88 @@
+package com.example.querydsl.service;
+
+import com.example.querydsl.domain.Member;
+import com.example.querydsl.domain.Team;
+import com.example.querydsl.dto.MemberSearchCondition;
+import com.example.querydsl.repository.MemberRepository;
+import com.example.querydsl.repository.TeamRepository;
+import jakarta.persistence.EntityManager;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * 전파가 chunk 마다 커밋하기 때문에 @Transactional 롤백을 쓰지 않는다. (끝나면 직접 지움)
+ */
+@SpringBootTest(properties = "member.bulk-update.chunk-size=2")
+class TeamRenameServiceTest {
+
+    @Autowired
+    EntityManager em;
+
+    @Autowired
+    TransactionTemplate transactionTemplate;
+
+    @Autowired
+    TeamRenameService teamRenameService;
+
+    @Autowired
+    MemberRepository memberRepository;
+
+    @Autowired
+    TeamRepository teamRepository;
+
+    @AfterEach
+    public void after() {
+        memberRepository.deleteAllInBatch();
+        teamRepository.deleteAllInBatch();
+    }
+
+    @Test
+    public void renamePropagatesToMembers() throws Exception {
+        Long teamId = transactionTemplate.execute(status -> {
+            Team teamA = new Team("teamA");
+            Team teamB = new Team("teamB");
+            em.persist(teamA);
+            em.persist(teamB);
+            for (int i = 1; i <= 5; i++) {
+                em.persist(new Member("member" + i, i * 10, i % 2 == 0 ? teamA : teamB));
+            }
+            return teamB.getId();
+        });
+
+        long updated = teamRenameService.rename(teamId, "teamC");
+
+        assertThat(updated).isEqualTo(3);
+        MemberSearchCondition condition = new MemberSearchCondition();
+        condition.setTeamName("teamC");
+        assertThat(memberRepository.searchJoinFree(condition))
+                .extracting("username").containsExactlyInAnyOrder("member1", "member3", "member5");
+        assertThat(memberRepository.searchJoinFree(condition))
+                .containsExactlyInAnyOrderElementsOf(memberRepository.search(condition));
+
+        // 이미 반영된 row 는 다시 건드리지 않는다.
+        assertThat(teamRenameService.propagate(teamId)).isZero();
+    }
+
+    /**
+     * team_name 컬럼은 대소문자를 무시하는 collation 이라서 대소문자만 바꾼 경우도 전파되는지 본다.
+     */
+    @Test
+    public void caseOnlyRenamePropagates() throws Exception {
+        Long teamId = transactionTemplate.execute(status -> {
+            Team teamB = new Team("teamB");
+            em.persist(teamB);
+            em.persist(new Member("member1", 10, teamB));
+            em.persist(new Member("member2", 20, teamB));
+            return teamB.getId();
+        });
+
+        assertThat(teamRenameService.rename(teamId, "TEAMB")).isEqualTo(2);
+        assertThat(memberRepository.findAll()).extracting("teamName").containsOnly("TEAMB");
+        assertThat(teamRenameService.propagate(teamId)).isZero();
+    }
+}
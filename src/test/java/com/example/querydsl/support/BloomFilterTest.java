@@ -0,0 +1,42 @@
+package com.example.querydsl.support;
+
+import org.junit.jupiter.api.Test;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class BloomFilterTest {
+
+    @Test
+    public void noFalseNegatives() throws Exception {
+        BloomFilter filter = BloomFilter.create(10_000, 0.01);
+        for (int i = 0; i < 10_000; i++) {
+            filter.put("member" + i);
+        }
+
+        for (int i = 0; i < 10_000; i++) {
+            assertThat(filter.mightContain("member" + i)).isTrue();
+        }
+        assertThat(filter.insertions()).isEqualTo(10_000);
+    }
+
+    @Test
+    public void falsePositiveRateNearTarget() throws Exception {
+        BloomFilter filter = BloomFilter.create(10_000, 0.01);
+        for (int i = 0; i < 10_000; i++) {
+            filter.put("member" + i);
+        }
+
+        int falsePositives = 0;
+        for (int i = 0; i < 100_000; i++) {
+            if (filter.mightContain("guest" + i)) {
+                falsePositives++;
+            }
+        }
+
+        // 목표 1% - 해시 편차를 감안해서 여유를 둔다.
+        assertThat(falsePositives / 100_000.0).isLessThan(0.02);
+        assertThat(filter.expectedFpp()).isBetween(0.005, 0.02);
+        // 1% 기준 원소당 약 9.6 bit
+        assertThat(filter.byteSize()).isBetween(10_000L, 14_000L);
+    }
+}
@@ -0,0 +1,23 @@
+package com.example.querydsl.support;
+
+import org.junit.jupiter.api.Test;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class CollationKeyTest {
+
+    @Test
+    public void ignoresCaseAndAccents() throws Exception {
+        assertThat(CollationKey.of("MEMBER1")).isEqualTo(CollationKey.of("member1"));
+        assertThat(CollationKey.of("Téam")).isEqualTo("team");
+        assertThat(CollationKey.of("team ")).isNotEqualTo(CollationKey.of("team"));
+        assertThat(CollationKey.of(null)).isNull();
+    }
+
+    @Test
+    public void exactOnlyForAsciiAndHangul() throws Exception {
+        assertThat(CollationKey.exact(CollationKey.of("Téam"))).isTrue();
+        assertThat(CollationKey.exact(CollationKey.of("비회원"))).isTrue();
+        assertThat(CollationKey.exact(CollationKey.of("straße"))).isFalse();
+    }
+}
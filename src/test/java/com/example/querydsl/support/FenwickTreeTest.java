@@ -0,0 +1,44 @@
+package com.example.querydsl.support;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.Random;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class FenwickTreeTest {
+
+    @Test
+    public void rangeSumMatchesArray() throws Exception {
+        FenwickTree tree = new FenwickTree(151);
+        long[] values = new long[151];
+        Random random = new Random(42);
+
+        for (int i = 0; i < 10_000; i++) {
+            int index = random.nextInt(151);
+            int delta = random.nextInt(5) - 1;
+            tree.add(index, delta);
+            values[index] += delta;
+        }
+
+        for (int from = 0; from < 151; from += 7) {
+            for (int to = from; to < 151; to += 11) {
+                long expected = 0;
+                for (int i = from; i <= to; i++) {
+                    expected += values[i];
+                }
+                assertThat(tree.rangeSum(from, to)).as("[%d, %d]", from, to).isEqualTo(expected);
+            }
+        }
+    }
+
+    @Test
+    public void emptyRange() throws Exception {
+        FenwickTree tree = new FenwickTree(10);
+        tree.add(3, 1);
+
+        assertThat(tree.rangeSum(5, 4)).isZero();
+        assertThat(tree.prefixSum(-1)).isZero();
+        assertThat(tree.prefixSum(100)).isEqualTo(1);
+    }
+}
@@ -0,0 +1,41 @@
+package com.example.querydsl.support;
+
+import java.util.function.Supplier;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * 테스트용 - 레포지토리 호출 하나가 실행하는 SQL 문 수 / 지연로딩 수를 검증한다.
+ *
+ * 쓰기 지연된 insert 가 같이 세어지지 않도록 호출 전에 em.flush() 를 해두자.
+ */
+public final class QueryBudget {
+
+    private QueryBudget() {
+    }
+
+    /**
+     * call 이 정확히 expected 개의 SQL 문을 실행했는지 검증하고 결과를 그대로 돌려준다.
+     */
+    public static <T> T expectStatements(long expected, Supplier<T> call) {
+        long before = QueryCountInspector.current();
+        T result = call.get();
+        assertThat(QueryCountInspector.current() - before).as("executed statements").isEqualTo(expected);
+        return result;
+    }
+
+    /**
+     * call 안에서 지연로딩이 max 번을 넘으면 그 시점에 IllegalStateException (호출 위치 포함) 으로 실패한다.
+     *
+     * @return 실제 지연로딩 횟수
+     */
+    public static int expectLazyLoadsAtMost(int max, Runnable call) {
+        LazyLoadDetector.begin("test", max, true);
+        try {
+            call.run();
+            return LazyLoadDetector.current();
+        } finally {
+            LazyLoadDetector.end();
+        }
+    }
+}
@@ -0,0 +1,60 @@
+package com.example.querydsl.support;
+
+import com.example.querydsl.dto.MemberSearchCondition;
+import io.micrometer.core.instrument.Timer;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class SearchMetricsTest {
+
+    SimpleMeterRegistry registry = new SimpleMeterRegistry();
+    SearchMetrics searchMetrics = new SearchMetrics(registry);
+
+    @Test
+    public void taggedByMethodAndShape() throws Exception {
+        MemberSearchCondition condition = new MemberSearchCondition();
+        condition.setTeamName("teamB");
+        condition.setAgeGoe(35);
+
+        List<String> result = searchMetrics.record("search", condition, () -> List.of("member3", "member4"));
+        searchMetrics.record("search", condition, List::of);
+
+        assertThat(result).hasSize(2);
+        Timer timer = registry.get("member.search")
+                .tag("method", "search")
+                .tag("shape", "teamName+ageGoe")
+                .timer();
+        assertThat(timer.count()).isEqualTo(2);
+        assertThat(registry.get("member.search.rows").tag("shape", "teamName+ageGoe").summary().totalAmount())
+                .isEqualTo(2);
+    }
+
+    @Test
+    public void emptyCondition() throws Exception {
+        searchMetrics.record("searchPageComplex", new MemberSearchCondition(), List::of);
+
+        assertThat(registry.get("member.search").tag("shape", "none").timer().count()).isEqualTo(1);
+    }
+
+    @Test
+    public void failedCallIsTimed() throws Exception {
+        MemberSearchCondition condition = new MemberSearchCondition();
+
+        assertThatThrownBy(() -> searchMetrics.record("search", condition, () -> {
+            throw new IllegalStateException("boom");
+        })).isInstanceOf(IllegalStateException.class);
+
+        Timer timer = registry.get("member.search")
+                .tag("outcome", "error")
+                .tag("exception", "IllegalStateException")
+                .timer();
+        assertThat(timer.count()).isEqualTo(1);
+        assertThat(registry.get("member.search").tag("outcome", "success").timer().count()).isZero();
+        assertThat(registry.get("member.search.rows").summary().count()).isZero();
+    }
+}
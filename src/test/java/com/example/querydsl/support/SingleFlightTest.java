@@ -0,0 +1,89 @@
+package com.example.querydsl.support;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class SingleFlightTest {
+
+    private static final int FOLLOWERS = 9;
+
+    /**
+     * leader 가 실행 중인 동안 들어온 호출은 전부 leader 결과를 받는다. (leader 는 follower 가 다 붙을 때까지 대기)
+     */
+    @Test
+    public void followersShareLeaderResult() throws Exception {
+        SingleFlight<String, Integer> singleFlight = new SingleFlight<>();
+        AtomicInteger executions = new AtomicInteger();
+        CountDownLatch leaderStarted = new CountDownLatch(1);
+        CountDownLatch followersJoined = new CountDownLatch(FOLLOWERS);
+
+        ExecutorService executor = Executors.newFixedThreadPool(FOLLOWERS + 1);
+        try {
+            Future<Integer> leader = executor.submit(() -> singleFlight.execute("key", () -> {
+                leaderStarted.countDown();
+                await(followersJoined);
+                return executions.incrementAndGet();
+            }));
+            leaderStarted.await(5, TimeUnit.SECONDS);
+
+            List<Future<Integer>> followers = new ArrayList<>();
+            for (int i = 0; i < FOLLOWERS; i++) {
+                followers.add(executor.submit(() ->
+                        singleFlight.execute("key", executions::incrementAndGet, followersJoined::countDown)));
+            }
+
+            assertThat(leader.get(5, TimeUnit.SECONDS)).isEqualTo(1);
+            for (Future<Integer> follower : followers) {
+                assertThat(follower.get(5, TimeUnit.SECONDS)).isEqualTo(1);
+            }
+            assertThat(executions).hasValue(1);
+            assertThat(singleFlight.inFlight()).isZero();
+        } finally {
+            executor.shutdownNow();
+        }
+
+        // 끝난 뒤에 들어온 호출은 다시 실행한다.
+        assertThat(singleFlight.execute("key", executions::incrementAndGet)).isEqualTo(2);
+    }
+
+    @Test
+    public void differentKeysRunSeparately() throws Exception {
+        SingleFlight<String, String> singleFlight = new SingleFlight<>();
+
+        String outer = singleFlight.execute("a", () -> singleFlight.execute("b", () -> "b") + "a");
+
+        assertThat(outer).isEqualTo("ba");
+    }
+
+    @Test
+    public void leaderExceptionIsRethrownAndCleared() throws Exception {
+        SingleFlight<String, String> singleFlight = new SingleFlight<>();
+
+        assertThatThrownBy(() -> singleFlight.execute("key", () -> {
+            throw new IllegalStateException("db down");
+        })).isInstanceOf(IllegalStateException.class).hasMessage("db down");
+
+        assertThat(singleFlight.inFlight()).isZero();
+        assertThat(singleFlight.execute("key", () -> "ok")).isEqualTo("ok");
+    }
+
+    private static void await(CountDownLatch latch) {
+        try {
+            latch.await(5, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException(e);
+        }
+    }
+}
@@ -0,0 +1,19 @@
+package com.example.querydsl.support;
+
+/**
+ * 테스트용 - 스레드에서 마지막으로 실행된 SQL 을 기억해 둔다. (실행 계획 확인용)
+ */
+public class SqlCaptureInspector extends QueryCountInspector {
+
+    private static final ThreadLocal<String> LAST = new ThreadLocal<>();
+
+    @Override
+    public String inspect(String sql) {
+        LAST.set(sql);
+        return super.inspect(sql);
+    }
+
+    public static String last() {
+        return LAST.get();
+    }
+}
@@ -0,0 +1,137 @@
+package com.example.querydsl.support;
+
+import com.example.querydsl.domain.Member;
+import com.example.querydsl.domain.Team;
+import com.example.querydsl.domain.TeamStats;
+import com.example.querydsl.repository.MemberBulkRepository;
+import com.example.querydsl.service.TeamStatsReconciler;
+import jakarta.persistence.EntityManager;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import static com.example.querydsl.domain.QMember.member;
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * 집계는 커밋 직전에 반영되기 때문에 @Transactional 롤백을 쓰지 않는다. (끝나면 직접 지움)
+ */
+@SpringBootTest
+class TeamStatsListenerTest {
+
+    @Autowired
+    EntityManager em;
+
+    @Autowired
+    TransactionTemplate transactionTemplate;
+
+    @Autowired
+    MemberBulkRepository memberBulkRepository;
+
+    @Autowired
+    TeamStatsReconciler teamStatsReconciler;
+
+    Long teamAId;
+    Long teamBId;
+
+    @BeforeEach
+    public void before() {
+        transactionTemplate.executeWithoutResult(status -> {
+            Team teamA = new Team("teamA");
+            Team teamB = new Team("teamB");
+            em.persist(teamA);
+            em.persist(teamB);
+
+            em.persist(new Member("member1", 10, teamA));
+            em.persist(new Member("member2", 20, teamA));
+            em.persist(new Member("member3", 30, teamB));
+            em.persist(new Member("member4", 40, teamB));
+            teamAId = teamA.getId();
+            teamBId = teamB.getId();
+        });
+    }
+
+    @AfterEach
+    public void after() {
+        transactionTemplate.executeWithoutResult(status -> {
+            em.createQuery("delete from Member").executeUpdate();
+            em.createQuery("delete from Team").executeUpdate();
+            em.createQuery("delete from TeamStats").executeUpdate();
+        });
+    }
+
+    @Test
+    public void insert() throws Exception {
+        assertStats(teamAId, 2, 30, 10, 20);
+        assertStats(teamBId, 2, 70, 30, 40);
+    }
+
+    @Test
+    public void ageChangeAndTeamChange() throws Exception {
+        transactionTemplate.executeWithoutResult(status -> {
+            Member member1 = findMember("member1");
+            member1.setAge(15);
+            Member member4 = findMember("member4");
+            member4.changeTeam(em.find(Team.class, teamAId));
+        });
+
+        assertStats(teamAId, 3, 75, 15, 40);
+        assertStats(teamBId, 1, 30, 30, 30);
+    }
+
+    @Test
+    public void delete() throws Exception {
+        transactionTemplate.executeWithoutResult(status -> em.remove(findMember("member2")));
+
+        assertStats(teamAId, 1, 10, 10, 10);
+    }
+
+    @Test
+    public void rollbackIsNotApplied() throws Exception {
+        transactionTemplate.executeWithoutResult(status -> {
+            findMember("member1").setAge(99);
+            status.setRollbackOnly();
+        });
+
+        assertStats(teamAId, 2, 30, 10, 20);
+    }
+
+    @Test
+    public void bulkUpdateAndDelete() throws Exception {
+        memberBulkRepository.update(member.age.goe(20), clause -> clause.set(member.age, member.age.add(1)));
+        assertStats(teamAId, 2, 31, 10, 21);
+        assertStats(teamBId, 2, 72, 31, 41);
+
+        memberBulkRepository.delete(member.age.gt(40));
+        assertStats(teamBId, 1, 31, 31, 31);
+    }
+
+    @Test
+    public void reconcile() throws Exception {
+        transactionTemplate.executeWithoutResult(status -> em
+                .createQuery("update TeamStats s set s.memberCount = 100 where s.teamId = :teamId")
+                .setParameter("teamId", teamAId)
+                .executeUpdate());
+
+        assertThat(teamStatsReconciler.reconcile()).isGreaterThanOrEqualTo(1);
+        assertStats(teamAId, 2, 30, 10, 20);
+    }
+
+    private Member findMember(String username) {
+        return em.createQuery("select m from Member m where m.username = :username", Member.class)
+                .setParameter("username", username)
+                .getSingleResult();
+    }
+
+    private void assertStats(Long teamId, long count, long ageSum, Integer minAge, Integer maxAge) {
+        TeamStats stats = transactionTemplate.execute(status -> em.find(TeamStats.class, teamId));
+        assertThat(stats).isNotNull();
+        assertThat(stats.getMemberCount()).isEqualTo(count);
+        assertThat(stats.getAgeSum()).isEqualTo(ageSum);
+        assertThat(stats.getMinAge()).isEqualTo(minAge);
+        assertThat(stats.getMaxAge()).isEqualTo(maxAge);
+    }
+}